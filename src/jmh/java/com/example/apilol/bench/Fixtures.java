@@ -0,0 +1,313 @@
+package com.example.apilol.bench;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.riot.ResponseCache;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Payloads Match-V5 / Timeline-V5 pour les benchmarks.
+ * <p>
+ * Par défaut : générés de façon déterministe avec la forme et la taille d'une partie classée
+ * de ~30 min (10 participants, ~130 champs + challenges chacun, 31 frames, ~1 500 events).
+ * Avec {@code -Dfixtures.cache=<dir> -Dfixtures.match=<matchId>}, on rejoue des réponses
+ * réelles enregistrées par le {@link ResponseCache}.
+ */
+public final class Fixtures {
+    public static final String MATCH_ID = System.getProperty("fixtures.match", "EUW1_7000000001");
+    public static final int PARTICIPANTS = 10;
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final String[] CHAMPIONS = {"Ahri", "LeeSin", "Jinx", "Thresh", "Garen", "Ornn", "Viego", "Syndra", "Kaisa", "Nautilus"};
+    private static final String[] POSITIONS = {"TOP", "JUNGLE", "MIDDLE", "BOTTOM", "UTILITY"};
+
+    private Fixtures() {}
+
+    public static String puuid(int participantId) { return "bench-puuid-" + participantId; }
+
+    public static byte[] match() throws IOException {
+        byte[] recorded = recorded("match");
+        return recorded != null ? recorded : generateMatch();
+    }
+
+    public static byte[] timeline() throws IOException {
+        byte[] recorded = recorded("timeline");
+        return recorded != null ? recorded : generateTimeline();
+    }
+
+    private static byte[] recorded(String endpoint) throws IOException {
+        String dir = System.getProperty("fixtures.cache");
+        if (dir == null) return null;
+        AppProperties props = new AppProperties();
+        props.getCache().setEnabled(true);
+        props.getCache().setDir(dir);
+        ResponseCache cache = new ResponseCache(props);
+        try {
+            byte[] body = cache.get(ResponseCache.key(endpoint, MATCH_ID));
+            if (body == null) throw new IllegalStateException(endpoint + " " + MATCH_ID + " absent du cache " + dir);
+            return body;
+        } finally {
+            cache.close();
+        }
+    }
+
+    private static byte[] generateMatch() throws IOException {
+        Random rnd = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 17);
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeObjectFieldStart("metadata");
+            g.writeStringField("dataVersion", "2");
+            g.writeStringField("matchId", MATCH_ID);
+            g.writeArrayFieldStart("participants");
+            for (int p = 1; p <= PARTICIPANTS; p++) g.writeString(puuid(p));
+            g.writeEndArray();
+            g.writeEndObject();
+
+            g.writeObjectFieldStart("info");
+            g.writeStringField("endOfGameResult", "GameComplete");
+            g.writeNumberField("gameCreation", 1_723_000_000_000L);
+            g.writeNumberField("gameDuration", 1834);
+            g.writeNumberField("gameEndTimestamp", 1_723_001_870_000L);
+            g.writeNumberField("gameId", 7_000_000_001L);
+            g.writeStringField("gameMode", "CLASSIC");
+            g.writeNumberField("gameStartTimestamp", 1_723_000_030_000L);
+            g.writeStringField("gameType", "MATCHED_GAME");
+            g.writeStringField("gameVersion", "14.16.611.2191");
+            g.writeNumberField("mapId", 11);
+            g.writeArrayFieldStart("participants");
+            for (int p = 1; p <= PARTICIPANTS; p++) participant(g, p, rnd);
+            g.writeEndArray();
+            g.writeStringField("platformId", "EUW1");
+            g.writeNumberField("queueId", 420);
+            g.writeArrayFieldStart("teams");
+            for (int t = 100; t <= 200; t += 100) team(g, t, rnd);
+            g.writeEndArray();
+            g.writeStringField("tournamentCode", "");
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static void participant(JsonGenerator g, int p, Random rnd) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("allInPings", rnd.nextInt(5));
+        g.writeNumberField("assists", rnd.nextInt(20));
+        g.writeNumberField("champLevel", 12 + rnd.nextInt(7));
+        g.writeNumberField("championId", 1 + rnd.nextInt(900));
+        g.writeStringField("championName", CHAMPIONS[p - 1]);
+        g.writeObjectFieldStart("challenges");
+        for (int i = 0; i < 120; i++) {
+            if (i % 3 == 0) g.writeNumberField("challenge" + i, rnd.nextDouble() * 100);
+            else g.writeNumberField("challenge" + i, rnd.nextInt(1000));
+        }
+        g.writeEndObject();
+        g.writeNumberField("damageSelfMitigated", rnd.nextInt(40_000));
+        g.writeNumberField("deaths", rnd.nextInt(12));
+        g.writeNumberField("detectorWardsPlaced", rnd.nextInt(6));
+        g.writeNumberField("goldEarned", 8_000 + rnd.nextInt(10_000));
+        g.writeStringField("individualPosition", POSITIONS[(p - 1) % 5]);
+        for (int i = 0; i <= 6; i++) g.writeNumberField("item" + i, 1000 + rnd.nextInt(6000));
+        g.writeNumberField("kills", rnd.nextInt(15));
+        g.writeStringField("lane", POSITIONS[(p - 1) % 5]);
+        g.writeObjectFieldStart("missions");
+        for (int i = 1; i <= 12; i++) g.writeNumberField("playerScore" + i, rnd.nextInt(100));
+        g.writeEndObject();
+        g.writeNumberField("neutralMinionsKilled", rnd.nextInt(200));
+        g.writeNumberField("participantId", p);
+        g.writeObjectFieldStart("perks");
+        g.writeObjectFieldStart("statPerks");
+        g.writeNumberField("defense", 5001); g.writeNumberField("flex", 5008); g.writeNumberField("offense", 5005);
+        g.writeEndObject();
+        g.writeArrayFieldStart("styles");
+        for (int s = 0; s < 2; s++) {
+            g.writeStartObject();
+            g.writeStringField("description", s == 0 ? "primaryStyle" : "subStyle");
+            g.writeArrayFieldStart("selections");
+            for (int k = 0; k < (s == 0 ? 4 : 2); k++) {
+                g.writeStartObject();
+                g.writeNumberField("perk", 8000 + rnd.nextInt(500));
+                g.writeNumberField("var1", rnd.nextInt(2000)); g.writeNumberField("var2", rnd.nextInt(50)); g.writeNumberField("var3", 0);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeNumberField("style", 8000 + 100 * s);
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+        g.writeStringField("puuid", puuid(p));
+        g.writeStringField("riotIdGameName", "Bench" + p);
+        g.writeStringField("riotIdTagline", "EUW");
+        g.writeStringField("role", "SOLO");
+        g.writeNumberField("summoner1Id", 4);
+        g.writeNumberField("summoner2Id", 14);
+        g.writeNumberField("teamId", p <= 5 ? 100 : 200);
+        g.writeNumberField("timeCCingOthers", rnd.nextInt(60));
+        g.writeNumberField("totalDamageDealtToChampions", rnd.nextInt(50_000));
+        g.writeNumberField("totalDamageTaken", rnd.nextInt(40_000));
+        g.writeNumberField("totalMinionsKilled", rnd.nextInt(300));
+        g.writeNumberField("visionScore", rnd.nextInt(80));
+        g.writeNumberField("wardsKilled", rnd.nextInt(15));
+        g.writeNumberField("wardsPlaced", rnd.nextInt(30));
+        g.writeBooleanField("win", p <= 5);
+        // le reste des ~80 stats scalaires de Match-V5
+        for (int i = 0; i < 80; i++) g.writeNumberField("stat" + i, rnd.nextInt(100_000));
+        g.writeEndObject();
+    }
+
+    private static void team(JsonGenerator g, int teamId, Random rnd) throws IOException {
+        g.writeStartObject();
+        g.writeArrayFieldStart("bans");
+        for (int i = 1; i <= 5; i++) {
+            g.writeStartObject();
+            g.writeNumberField("championId", 1 + rnd.nextInt(900));
+            g.writeNumberField("pickTurn", i);
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        g.writeObjectFieldStart("objectives");
+        for (String o : new String[]{"baron", "champion", "dragon", "horde", "inhibitor", "riftHerald", "tower"}) {
+            g.writeObjectFieldStart(o);
+            g.writeBooleanField("first", rnd.nextBoolean());
+            g.writeNumberField("kills", rnd.nextInt(10));
+            g.writeEndObject();
+        }
+        g.writeEndObject();
+        g.writeNumberField("teamId", teamId);
+        g.writeBooleanField("win", teamId == 100);
+        g.writeEndObject();
+    }
+
+    private static byte[] generateTimeline() throws IOException {
+        Random rnd = new Random(7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeObjectFieldStart("metadata");
+            g.writeStringField("dataVersion", "2");
+            g.writeStringField("matchId", MATCH_ID);
+            g.writeEndObject();
+            g.writeObjectFieldStart("info");
+            g.writeNumberField("frameInterval", 60_000);
+            g.writeArrayFieldStart("frames");
+            for (int f = 0; f <= 30; f++) {
+                long ts = f * 60_000L;
+                g.writeStartObject();
+                g.writeArrayFieldStart("events");
+                int events = f == 0 ? 10 : 40 + rnd.nextInt(20);
+                for (int e = 0; e < events; e++) event(g, ts + rnd.nextInt(60_000), rnd);
+                g.writeEndArray();
+                g.writeObjectFieldStart("participantFrames");
+                for (int p = 1; p <= PARTICIPANTS; p++) participantFrame(g, p, f, rnd);
+                g.writeEndObject();
+                g.writeNumberField("timestamp", ts);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static void participantFrame(JsonGenerator g, int p, int f, Random rnd) throws IOException {
+        g.writeObjectFieldStart(String.valueOf(p));
+        g.writeObjectFieldStart("championStats");
+        for (String s : new String[]{"abilityHaste", "abilityPower", "armor", "armorPen", "armorPenPercent", "attackDamage",
+                "attackSpeed", "bonusArmorPenPercent", "bonusMagicPenPercent", "ccReduction", "cooldownReduction", "health",
+                "healthMax", "healthRegen", "lifesteal", "magicPen", "magicPenPercent", "magicResist", "movementSpeed",
+                "omnivamp", "physicalVamp", "power", "powerMax", "powerRegen", "spellVamp"})
+            g.writeNumberField(s, rnd.nextInt(1000));
+        g.writeEndObject();
+        g.writeNumberField("currentGold", rnd.nextInt(3000));
+        g.writeObjectFieldStart("damageStats");
+        for (String s : new String[]{"magicDamageDone", "magicDamageDoneToChampions", "magicDamageTaken", "physicalDamageDone",
+                "physicalDamageDoneToChampions", "physicalDamageTaken", "totalDamageDone", "totalDamageDoneToChampions",
+                "totalDamageTaken", "trueDamageDone", "trueDamageDoneToChampions", "trueDamageTaken"})
+            g.writeNumberField(s, f * rnd.nextInt(2000));
+        g.writeEndObject();
+        g.writeNumberField("goldPerSecond", 0);
+        g.writeNumberField("jungleMinionsKilled", f * rnd.nextInt(4));
+        g.writeNumberField("level", Math.min(18, 1 + f / 2));
+        g.writeNumberField("minionsKilled", f * 7);
+        g.writeNumberField("participantId", p);
+        g.writeObjectFieldStart("position");
+        g.writeNumberField("x", rnd.nextInt(15_000));
+        g.writeNumberField("y", rnd.nextInt(15_000));
+        g.writeEndObject();
+        g.writeNumberField("timeEnemySpentControlled", rnd.nextInt(100_000));
+        g.writeNumberField("totalGold", 500 + f * 400);
+        g.writeNumberField("xp", f * 600);
+        g.writeEndObject();
+    }
+
+    private static void event(JsonGenerator g, long ts, Random rnd) throws IOException {
+        int pid = 1 + rnd.nextInt(PARTICIPANTS);
+        g.writeStartObject();
+        switch (rnd.nextInt(6)) {
+            case 0, 1 -> {
+                g.writeNumberField("itemId", 1000 + rnd.nextInt(6000));
+                g.writeNumberField("participantId", pid);
+                g.writeNumberField("timestamp", ts);
+                g.writeStringField("type", "ITEM_PURCHASED");
+            }
+            case 2 -> {
+                g.writeStringField("levelUpType", "NORMAL");
+                g.writeNumberField("participantId", pid);
+                g.writeNumberField("skillSlot", 1 + rnd.nextInt(4));
+                g.writeNumberField("timestamp", ts);
+                g.writeStringField("type", "SKILL_LEVEL_UP");
+            }
+            case 3 -> {
+                g.writeNumberField("creatorId", pid);
+                g.writeNumberField("timestamp", ts);
+                g.writeStringField("type", "WARD_PLACED");
+                g.writeStringField("wardType", rnd.nextBoolean() ? "YELLOW_TRINKET" : "CONTROL_WARD");
+            }
+            case 4 -> {
+                g.writeArrayFieldStart("assistingParticipantIds");
+                for (int i = 0; i < rnd.nextInt(4); i++) g.writeNumber(1 + rnd.nextInt(PARTICIPANTS));
+                g.writeEndArray();
+                g.writeNumberField("bounty", 300);
+                g.writeNumberField("killStreakLength", rnd.nextInt(5));
+                g.writeNumberField("killerId", pid);
+                g.writeObjectFieldStart("position");
+                g.writeNumberField("x", rnd.nextInt(15_000));
+                g.writeNumberField("y", rnd.nextInt(15_000));
+                g.writeEndObject();
+                g.writeNumberField("shutdownBounty", 0);
+                g.writeNumberField("timestamp", ts);
+                g.writeStringField("type", "CHAMPION_KILL");
+                g.writeArrayFieldStart("victimDamageReceived");
+                for (int i = 0; i < 4; i++) {
+                    g.writeStartObject();
+                    g.writeBooleanField("basic", rnd.nextBoolean());
+                    g.writeNumberField("magicDamage", rnd.nextInt(1000));
+                    g.writeStringField("name", CHAMPIONS[rnd.nextInt(CHAMPIONS.length)]);
+                    g.writeNumberField("participantId", 1 + rnd.nextInt(PARTICIPANTS));
+                    g.writeNumberField("physicalDamage", rnd.nextInt(1000));
+                    g.writeStringField("spellName", "spell" + rnd.nextInt(10));
+                    g.writeNumberField("spellSlot", rnd.nextInt(4));
+                    g.writeNumberField("trueDamage", rnd.nextInt(200));
+                    g.writeStringField("type", "OTHER");
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+                g.writeNumberField("victimId", 1 + rnd.nextInt(PARTICIPANTS));
+            }
+            default -> {
+                g.writeNumberField("participantId", pid);
+                g.writeNumberField("timestamp", ts);
+                g.writeStringField("type", "ITEM_DESTROYED");
+                g.writeNumberField("itemId", 2003);
+            }
+        }
+        g.writeEndObject();
+    }
+}
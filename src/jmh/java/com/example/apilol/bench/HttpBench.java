@@ -0,0 +1,91 @@
+package com.example.apilol.bench;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.IngestionLog;
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.riot.ResponseCache;
+import com.example.apilol.riot.RiotApiClient;
+import com.example.apilol.service.MatchParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin réseau complet contre un faux Riot local : limiteur, WebClient, lecture du corps
+ * puis parsing. Le serveur renvoie les fixtures avec des en-têtes de rate-limit larges pour
+ * que le limiteur soit exercé sans jamais bloquer. Cache disque et journal HTTP désactivés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HttpBench {
+    private HttpServer server;
+    private ExecutorService exec;
+    private RiotApiClient api;
+    private byte[] match;
+    private byte[] timeline;
+
+    @Setup
+    public void setup() throws Exception {
+        match = Fixtures.match();
+        timeline = Fixtures.timeline();
+        // en-têtes et corps partent en deux écritures : sans TCP_NODELAY, Nagle + ACK retardé ajoutent ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        exec = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(exec);
+        server.createContext("/lol/match/v5/matches/", this::serve);
+        server.start();
+
+        AppProperties props = new AppProperties();
+        props.getRiot().setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        props.getCache().setEnabled(false);
+        props.getIngest().setHttpLog(false);
+        var meters = new SimpleMeterRegistry();
+        api = new RiotApiClient(props, new ResponseCache(props), meters, new IngestionLog(null, props, meters));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        exec.shutdownNow();
+    }
+
+    private void serve(HttpExchange ex) throws IOException {
+        byte[] body = ex.getRequestURI().getPath().endsWith("/timeline") ? timeline : match;
+        var h = ex.getResponseHeaders();
+        h.set("Content-Type", "application/json");
+        h.set("X-App-Rate-Limit", "1000000:1");
+        h.set("X-App-Rate-Limit-Count", "1:1");
+        h.set("X-Method-Rate-Limit", "1000000:1");
+        h.set("X-Method-Rate-Limit-Count", "1:1");
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) { out.write(body); }
+    }
+
+    @Benchmark
+    public byte[] fetchMatch() throws Exception {
+        return api.getMatch(Fixtures.MATCH_ID);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] fetchMatchConcurrent() throws Exception {
+        return api.getMatch(Fixtures.MATCH_ID);
+    }
+
+    @Benchmark
+    public MatchRows fetchAndParse() throws Exception {
+        MatchRows rows = MatchParser.parseMatch(api.getMatch(Fixtures.MATCH_ID), "europe");
+        MatchParser.parseTimeline(rows, api.getTimeline(Fixtures.MATCH_ID));
+        return rows;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.apilol.bench;
+
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.service.MatchParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing d'un match + timeline : lecteur streaming actuel ({@link MatchParser}) contre
+ * l'ancien arbre {@code Map<String,Object>} (référence, sans extraction des colonnes).
+ * Lancer avec {@code -prof gc} (déjà configuré) pour comparer les octets alloués par opération.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBench {
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {};
+
+    private final ObjectMapper om = new ObjectMapper();
+    private byte[] match;
+    private byte[] timeline;
+
+    @Setup
+    public void setup() throws Exception {
+        match = Fixtures.match();
+        timeline = Fixtures.timeline();
+    }
+
+    @Benchmark
+    public MatchRows streamingMatch() throws Exception {
+        return MatchParser.parseMatch(match, "europe");
+    }
+
+    @Benchmark
+    public MatchRows streamingMatchAndTimeline() throws Exception {
+        MatchRows rows = MatchParser.parseMatch(match, "europe");
+        MatchParser.parseTimeline(rows, timeline);
+        return rows;
+    }
+
+    @Benchmark
+    public Map<String, Object> mapTreeMatch() throws Exception {
+        return om.readValue(match, MAP);
+    }
+
+    @Benchmark
+    public Object mapTreeMatchAndTimeline() throws Exception {
+        Map<String, Object> m = om.readValue(match, MAP);
+        Map<String, Object> t = om.readValue(timeline, MAP);
+        return new Object[]{m, t};
+    }
+}
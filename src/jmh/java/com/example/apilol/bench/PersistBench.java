@@ -0,0 +1,79 @@
+package com.example.apilol.bench;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.BulkWriter;
+import com.example.apilol.db.BulkWriter.WriteStrategy;
+import com.example.apilol.db.Db;
+import com.example.apilol.db.FrameSeries;
+import com.example.apilol.db.HeatmapStore;
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.db.MatchStore;
+import com.example.apilol.db.PartitionManager;
+import com.example.apilol.db.StatsStore;
+import com.example.apilol.db.SummonerStore;
+import com.example.apilol.service.MatchParser;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistance d'un match complet (match + équipes + participants + frames + events) dans
+ * une transaction, pour chaque stratégie d'écriture et chaque stockage des frames. Nécessite un Postgres local :
+ * {@code -Djdbc.url=jdbc:postgresql://localhost:5432/lol -Djdbc.user=... -Djdbc.password=...}.
+ * Le schéma est migré par Flyway au setup ; le même match est réécrit à chaque itération
+ * (delete + insert des enfants, comme une ré-ingestion ; les agrégats ne sont donc comptés qu'une fois).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistBench {
+    @Param({"ROW", "BATCH", "COPY"})
+    public WriteStrategy strategy;
+
+    @Param({"ROWS", "PACKED"})
+    public FrameSeries.Storage frameStorage;
+
+    private HikariDataSource ds;
+    private MatchStore store;
+    private MatchRows rows;
+
+    @Setup
+    public void setup() throws Exception {
+        ds = new HikariDataSource();
+        ds.setJdbcUrl(System.getProperty("jdbc.url", "jdbc:postgresql://localhost:5432/lol"));
+        ds.setUsername(System.getProperty("jdbc.user", "postgres"));
+        ds.setPassword(System.getProperty("jdbc.password", "postgres"));
+        ds.setMaximumPoolSize(2);
+        ds.addDataSourceProperty("reWriteBatchedInserts", "true");
+        Flyway.configure().dataSource(ds).load().migrate();
+
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+
+        AppProperties props = new AppProperties();
+        props.getIngest().setWriteStrategy(strategy);
+        props.getIngest().setFrameStorage(frameStorage);
+        Db db = new Db(jdbc);
+        var tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        store = new MatchStore(db, new BulkWriter(db, new SimpleMeterRegistry()), tx, props,
+                new StatsStore(db), new HeatmapStore(db), new PartitionManager(db), new SummonerStore(db, props));
+
+        rows = MatchParser.parseMatch(Fixtures.match(), "europe");
+        MatchParser.parseTimeline(rows, Fixtures.timeline());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ds.close();
+    }
+
+    @Benchmark
+    public void saveMatch() {
+        store.save(rows);
+    }
+}
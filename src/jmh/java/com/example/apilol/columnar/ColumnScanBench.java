@@ -0,0 +1,84 @@
+package com.example.apilol.columnar;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrégat "or moyen des MIDDLE" sur un export participant synthétique : colonnes mappées
+ * ({@link ColumnReader}, codes de dictionnaire) contre le même calcul sur des lignes objet,
+ * forme de ce que donne une extraction JDBC ligne à ligne.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnScanBench {
+    private static final String[] POSITIONS = {"TOP", "JUNGLE", "MIDDLE", "BOTTOM", "UTILITY"};
+
+    private record Row(String position, Integer gold) {}
+
+    @Param("2000000")
+    public int rows;
+
+    private Path dir;
+    private ColumnReader reader;
+    private Row[] objects;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("lolc-bench");
+        Path file = dir.resolve("participant.lolc");
+        objects = new Row[rows];
+        Random rnd = new Random(42);
+        try (var w = new ColumnWriter(file, List.of(
+                new ColumnWriter.Column("individual_position", ColumnType.DICT),
+                new ColumnWriter.Column("gold_earned", ColumnType.INT)))) {
+            for (int i = 0; i < rows; i++) {
+                String pos = POSITIONS[i % POSITIONS.length];
+                int gold = 5_000 + rnd.nextInt(15_000);
+                w.writeString(0, pos);
+                w.writeInt(1, gold);
+                w.endRow();
+                objects[i] = new Row(pos, gold);
+            }
+            w.finish();
+        }
+        reader = ColumnReader.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        reader.close();
+        try (var files = Files.list(dir)) { for (Path p : files.toList()) Files.delete(p); }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public double mappedColumns() {
+        var pos = reader.column("individual_position");
+        var gold = reader.column("gold_earned");
+        int mid = pos.code("MIDDLE");
+        long sum = 0, n = 0;
+        for (long r = 0, rows = reader.rows(); r < rows; r++) {
+            if (pos.getInt(r) != mid || gold.isNull(r)) continue;
+            sum += gold.getInt(r);
+            n++;
+        }
+        return (double) sum / n;
+    }
+
+    @Benchmark
+    public double objectRows() {
+        long sum = 0, n = 0;
+        for (Row r : objects) {
+            if (!"MIDDLE".equals(r.position()) || r.gold() == null) continue;
+            sum += r.gold();
+            n++;
+        }
+        return (double) sum / n;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.apilol.service;
+
+import com.example.apilol.bench.Fixtures;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions numériques sur les champs scalaires d'un match : anciens helpers
+ * {@code toInt(Object)}/{@code toLong(Object)} sur l'arbre de Maps (boxing + instanceof)
+ * contre les lectures directes sur le token courant de {@link MatchParser}.
+ * Dans le package {@code service} pour atteindre les helpers package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConversionBench {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private byte[] match;
+    private List<Map<String, Object>> participants;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        match = Fixtures.match();
+        Map<String, Object> root = new ObjectMapper().readValue(match, new TypeReference<>() {});
+        participants = (List<Map<String, Object>>) ((Map<String, Object>) root.get("info")).get("participants");
+    }
+
+    @Benchmark
+    public void legacyObject(Blackhole bh) {
+        for (Map<String, Object> p : participants)
+            for (Object v : p.values())
+                if (v instanceof Number) { bh.consume(legacyToInt(v)); bh.consume(legacyToLong(v)); }
+    }
+
+    @Benchmark
+    public void streamingToken(Blackhole bh) throws Exception {
+        try (JsonParser p = JSON.createParser(match)) {
+            for (JsonToken t; (t = p.nextToken()) != null; ) {
+                if (t != JsonToken.VALUE_NUMBER_INT) continue;
+                // les timestamps ne tiennent pas dans un int : l'ancien helper tronquait, le parseur lève
+                if (p.getNumberType() == JsonParser.NumberType.INT) bh.consume(MatchParser.toInt(p));
+                bh.consume(MatchParser.toLong(p));
+            }
+        }
+    }
+
+    /** Lecture seule du flux, sans conversion : coût plancher du tokenizer. */
+    @Benchmark
+    public void streamingTokenizeOnly(Blackhole bh) throws Exception {
+        try (JsonParser p = JSON.createParser(match)) {
+            for (JsonToken t; (t = p.nextToken()) != null; ) bh.consume(t);
+        }
+    }
+
+    private static Integer legacyToInt(Object o) { return o == null ? null : (o instanceof Number n ? n.intValue() : Integer.parseInt(o.toString())); }
+    private static Long legacyToLong(Object o) { return o == null ? null : (o instanceof Number n ? n.longValue() : Long.parseLong(o.toString())); }
+}
@@ -0,0 +1,92 @@
+package com.example.apilol.service;
+
+import com.example.apilol.bench.Fixtures;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tri "colonne connue / reste en jsonb" des champs d'un participant et d'un event : anciens
+ * {@code stripParticipantKnown} / {@code stripEventKnown} (Set.of reconstruit à chaque appel)
+ * contre les tables {@link MatchParser#PARTICIPANT_COLS} / {@link MatchParser#EVENT_COLS}
+ * construites une fois. Les deux variantes font le même travail : une recherche par champ et
+ * la copie des champs inconnus ; seule la construction de l'ensemble des champs connus diffère.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KnownFieldsBench {
+    /** champs hors des tables de colonnes mais lus à part par MatchParser */
+    private static final Set<String> PARTICIPANT_SPECIAL = Set.of("perks");
+    private static final Set<String> EVENT_SPECIAL = Set.of("position", "assistingParticipantIds");
+
+    private List<Map<String, Object>> participants;
+    private List<Map<String, Object>> events;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        ObjectMapper om = new ObjectMapper();
+        Map<String, Object> root = om.readValue(Fixtures.match(), new TypeReference<>() {});
+        participants = (List<Map<String, Object>>) ((Map<String, Object>) root.get("info")).get("participants");
+        Map<String, Object> timeline = om.readValue(Fixtures.timeline(), new TypeReference<>() {});
+        events = new ArrayList<>();
+        for (Object f : (List<Object>) ((Map<String, Object>) timeline.get("info")).get("frames"))
+            events.addAll((List<Map<String, Object>>) ((Map<String, Object>) f).get("events"));
+    }
+
+    @Benchmark
+    public void legacyStripParticipant(Blackhole bh) {
+        for (Map<String, Object> p : participants) bh.consume(legacyStripParticipant(p));
+    }
+
+    @Benchmark
+    public void hoistedStripParticipant(Blackhole bh) {
+        for (Map<String, Object> p : participants)
+            bh.consume(strip(p, MatchParser.PARTICIPANT_COLS.keySet(), PARTICIPANT_SPECIAL));
+    }
+
+    @Benchmark
+    public void legacyStripEvent(Blackhole bh) {
+        for (Map<String, Object> e : events) bh.consume(legacyStripEvent(e));
+    }
+
+    @Benchmark
+    public void hoistedStripEvent(Blackhole bh) {
+        for (Map<String, Object> e : events) bh.consume(strip(e, MatchParser.EVENT_COLS.keySet(), EVENT_SPECIAL));
+    }
+
+    private static Map<String, Object> strip(Map<String, Object> m, Set<String> cols, Set<String> special) {
+        Map<String, Object> copy = new HashMap<>();
+        for (var e : m.entrySet())
+            if (!cols.contains(e.getKey()) && !special.contains(e.getKey())) copy.put(e.getKey(), e.getValue());
+        return copy;
+    }
+
+    private static Map<String, Object> legacyStripParticipant(Map<String, Object> p) {
+        Set<String> known = Set.of("participantId","puuid","teamId","championId","championName",
+                "riotIdGameName","riotIdTagline","individualPosition","lane","role",
+                "summoner1Id","summoner2Id","item0","item1","item2","item3","item4","item5","item6",
+                "kills","deaths","assists","totalDamageDealtToChampions","totalDamageTaken",
+                "damageSelfMitigated","goldEarned","visionScore","wardsPlaced","wardsKilled",
+                "detectorWardsPlaced","champLevel","totalMinionsKilled","neutralMinionsKilled",
+                "timeCCingOthers","win","perks");
+        Map<String, Object> copy = new HashMap<>();
+        for (var e : p.entrySet()) if (!known.contains(e.getKey())) copy.put(e.getKey(), e.getValue());
+        return copy;
+    }
+
+    private static Map<String, Object> legacyStripEvent(Map<String, Object> ev) {
+        Set<String> known = Set.of("timestamp","type","participantId","killerId","victimId","teamId",
+                "assistingParticipantIds","position","itemId","afterId","beforeId","skillSlot",
+                "levelUpType","wardType","buildingType","towerType","monsterType","monsterSubType",
+                "bounty","goldGain");
+        Map<String, Object> copy = new HashMap<>();
+        for (var e : ev.entrySet()) if (!known.contains(e.getKey())) copy.put(e.getKey(), e.getValue());
+        return copy;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.apilol.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Lecture d'un fichier {@code .lolc} ({@link ColumnWriter}) par mapping mémoire. Seuls
+ * l'en-tête et les dictionnaires sont décodés à l'ouverture ; les valeurs sont lues à la
+ * demande par index de ligne, sans allocation, directement dans le page cache :
+ * <pre>
+ * try (var f = ColumnReader.open(path)) {
+ *     var gold = f.column("gold_earned");
+ *     var pos = f.column("individual_position");
+ *     int mid = pos.code("MIDDLE");
+ *     long sum = 0;
+ *     for (long r = 0; r < f.rows(); r++) if (pos.getInt(r) == mid) sum += gold.getInt(r);
+ * }
+ * </pre>
+ * Une colonne est mappée par tranches de 1 Go (un mapping Java est limité à 2 Go) ; la
+ * largeur d'un type divise la tranche, aucune valeur n'est à cheval.
+ */
+public final class ColumnReader implements Closeable {
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final FileChannel ch;
+    private final long rows;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+
+    private ColumnReader(FileChannel ch) throws IOException {
+        this.ch = ch;
+        ByteBuffer fixed = read(0, 24);
+        if (fixed.getInt() != ColumnWriter.MAGIC) throw new IOException("pas un fichier .lolc");
+        int version = fixed.getInt();
+        if (version != ColumnWriter.VERSION) throw new IOException("version .lolc non supportée : " + version);
+        int headLen = fixed.getInt(), count = fixed.getInt();
+        rows = fixed.getLong();
+        ByteBuffer h = read(24, headLen - 24);
+        ColumnType[] types = ColumnType.values();
+        for (int i = 0; i < count; i++) {
+            ColumnType type = types[h.get()];
+            byte[] name = new byte[h.getShort()];
+            h.get(name);
+            long nulls = h.getLong(), min = h.getLong(), max = h.getLong(), data = h.getLong(), dict = h.getLong();
+            int dictSize = h.getInt();
+            Column c = new Column(new String(name, StandardCharsets.UTF_8), type, nulls, min, max,
+                    map(data, rows * type.width), dictSize > 0 ? dictionary(dict, dictSize) : new String[0]);
+            columns.put(c.name, c);
+        }
+    }
+
+    public static ColumnReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnReader(ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long rows() { return rows; }
+
+    public Collection<Column> columns() { return Collections.unmodifiableCollection(columns.values()); }
+
+    public Column column(String name) {
+        Column c = columns.get(name);
+        if (c == null) throw new NoSuchElementException("colonne inconnue : " + name);
+        return c;
+    }
+
+    /** Les mappings restent valides jusqu'à leur collecte par le GC, même après close(). */
+    @Override
+    public void close() throws IOException { ch.close(); }
+
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) if (ch.read(b, pos + b.position()) < 0) throw new IOException("fichier .lolc tronqué");
+        return b.flip();
+    }
+
+    private MappedByteBuffer[] map(long offset, long length) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, offset + start, Math.min(1L << CHUNK_SHIFT, length - start));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private String[] dictionary(long offset, int size) throws IOException {
+        String[] out = new String[size];
+        long pos = offset;
+        for (int i = 0; i < size; i++) {
+            int len = read(pos, 4).getInt();
+            out[i] = new String(read(pos + 4, len).array(), StandardCharsets.UTF_8);
+            pos += 4 + len;
+        }
+        return out;
+    }
+
+    /** Une colonne mappée ; les getters prennent un index de ligne dans [0, rows). */
+    public static final class Column {
+        private final String name;
+        private final ColumnType type;
+        private final long nulls, min, max;
+        private final MappedByteBuffer[] chunks;
+        private final String[] dict;
+
+        private Column(String name, ColumnType type, long nulls, long min, long max, MappedByteBuffer[] chunks, String[] dict) {
+            this.name = name;
+            this.type = type;
+            this.nulls = nulls;
+            this.min = min;
+            this.max = max;
+            this.chunks = chunks;
+            this.dict = dict;
+        }
+
+        public String name() { return name; }
+        public ColumnType type() { return type; }
+        public long nullCount() { return nulls; }
+
+        /** bornes hors NULL (INT, LONG, BOOL ; codes pour DICT) : permet d'écarter un fichier sans le lire */
+        public long min() { return min; }
+        public long max() { return max; }
+        public double minDouble() { return Double.longBitsToDouble(min); }
+        public double maxDouble() { return Double.longBitsToDouble(max); }
+
+        public int getInt(long row) {
+            long b = row << 2;
+            return chunks[(int) (b >>> CHUNK_SHIFT)].getInt((int) (b & CHUNK_MASK));
+        }
+
+        public long getLong(long row) {
+            long b = row << 3;
+            return chunks[(int) (b >>> CHUNK_SHIFT)].getLong((int) (b & CHUNK_MASK));
+        }
+
+        public double getDouble(long row) {
+            long b = row << 3;
+            return chunks[(int) (b >>> CHUNK_SHIFT)].getDouble((int) (b & CHUNK_MASK));
+        }
+
+        /** 1, 0, ou {@link ColumnType#NULL_BOOL} */
+        public byte getBool(long row) {
+            return chunks[(int) (row >>> CHUNK_SHIFT)].get((int) (row & CHUNK_MASK));
+        }
+
+        public boolean isNull(long row) {
+            return switch (type) {
+                case INT -> getInt(row) == ColumnType.NULL_INT;
+                case DICT -> getInt(row) == ColumnType.NULL_CODE;
+                case LONG -> getLong(row) == ColumnType.NULL_LONG;
+                case DOUBLE -> Double.isNaN(getDouble(row));
+                case BOOL -> getBool(row) == ColumnType.NULL_BOOL;
+            };
+        }
+
+        /** DICT : chaîne de la ligne (instance partagée du dictionnaire), null si NULL */
+        public String getString(long row) {
+            int code = getInt(row);
+            return code == ColumnType.NULL_CODE ? null : dict[code];
+        }
+
+        /** DICT : code d'une valeur, pour filtrer sur les codes ; absente : -2, qu'aucune ligne ne porte (pas même NULL). */
+        public int code(String value) {
+            for (int i = 0; i < dict.length; i++) if (dict[i].equals(value)) return i;
+            return -2;
+        }
+
+        public List<String> dictionary() { return List.of(dict); }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.apilol.columnar;
+
+import java.sql.Types;
+
+/**
+ * Types de colonne du format {@code .lolc}, tous à largeur fixe. NULL est une valeur
+ * sentinelle : {@link Integer#MIN_VALUE}, {@link Long#MIN_VALUE}, NaN, -1 (BOOL et DICT).
+ */
+public enum ColumnType {
+    INT(4), LONG(8), DOUBLE(8), BOOL(1),
+    /** code int dans le dictionnaire de la colonne */
+    DICT(4);
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    public static final byte NULL_BOOL = -1;
+    public static final int NULL_CODE = -1;
+
+    public final int width;
+
+    ColumnType(int width) { this.width = width; }
+
+    /** @return null pour un type non exportable (jsonb, tableaux…) */
+    public static ColumnType ofSql(int sqlType) {
+        return switch (sqlType) {
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> INT;
+            case Types.BIGINT -> LONG;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL -> DOUBLE;
+            case Types.BOOLEAN, Types.BIT -> BOOL;
+            case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR -> DICT;
+            default -> null;
+        };
+    }
+}
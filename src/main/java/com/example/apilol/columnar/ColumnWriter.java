@@ -0,0 +1,233 @@
+package com.example.apilol.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écrit un fichier {@code .lolc} ligne à ligne : {@code writeXxx(col, v)} pour chaque colonne
+ * puis {@link #endRow()}. Chaque colonne est accumulée dans son propre fichier temporaire ;
+ * {@link #finish()} assemble l'en-tête (nombre de lignes, min/max, offsets) et les colonnes, puis
+ * publie le fichier. {@link #close()} sans {@code finish()} (export interrompu) ne fait que
+ * supprimer les temporaires : un fichier {@code .lolc} publié est toujours complet.
+ * <pre>
+ * en-tête  : magic "LOLC", version, taille de l'en-tête, nb colonnes, nb lignes
+ * colonne  : type, nom, nb nulls, min, max, offset données, offset dictionnaire, taille dictionnaire
+ * données  : valeurs little-endian contiguës, chaque colonne alignée sur 8 octets
+ * dict     : n × (longueur, octets UTF-8), dans l'ordre des codes
+ * </pre>
+ * min / max ignorent les NULL ; un DOUBLE les stocke via {@link Double#doubleToLongBits}.
+ */
+public final class ColumnWriter implements Closeable {
+    static final int MAGIC = 0x434C4F4C; // "LOLC" en little-endian
+    static final int VERSION = 1;
+    private static final int BUFFER = 1 << 16;
+
+    public record Column(String name, ColumnType type) {}
+
+    private final Path file;
+    private final List<Column> columns;
+    private final Spill[] spills;
+    private long rows;
+    private boolean finished;
+
+    public ColumnWriter(Path file, List<Column> columns) throws IOException {
+        this.file = file;
+        this.columns = List.copyOf(columns);
+        this.spills = new Spill[columns.size()];
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        for (int i = 0; i < spills.length; i++) spills[i] = new Spill(file.resolveSibling(file.getFileName() + "." + i + ".tmp"));
+    }
+
+    public List<Column> columns() { return columns; }
+
+    public long rows() { return rows; }
+
+    public void writeInt(int col, int v) throws IOException {
+        Spill s = spills[col];
+        s.room(4).putInt(v);
+        s.stat(v);
+    }
+
+    public void writeLong(int col, long v) throws IOException {
+        Spill s = spills[col];
+        s.room(8).putLong(v);
+        s.stat(v);
+    }
+
+    public void writeDouble(int col, double v) throws IOException {
+        Spill s = spills[col];
+        s.room(8).putDouble(v);
+        if (!s.any || v < s.dmin) s.dmin = v;
+        if (!s.any || v > s.dmax) s.dmax = v;
+        s.any = true;
+    }
+
+    public void writeBool(int col, boolean v) throws IOException {
+        Spill s = spills[col];
+        s.room(1).put((byte) (v ? 1 : 0));
+        s.stat(v ? 1 : 0);
+    }
+
+    public void writeString(int col, String v) throws IOException {
+        if (v == null) { writeNull(col); return; }
+        Spill s = spills[col];
+        Integer code = s.dict.get(v);
+        if (code == null) { code = s.dict.size(); s.dict.put(v, code); }
+        s.room(4).putInt(code);
+    }
+
+    public void writeNull(int col) throws IOException {
+        Spill s = spills[col];
+        switch (columns.get(col).type()) {
+            case INT -> s.room(4).putInt(ColumnType.NULL_INT);
+            case LONG -> s.room(8).putLong(ColumnType.NULL_LONG);
+            case DOUBLE -> s.room(8).putDouble(Double.NaN);
+            case BOOL -> s.room(1).put(ColumnType.NULL_BOOL);
+            case DICT -> s.room(4).putInt(ColumnType.NULL_CODE);
+        }
+        s.nulls++;
+    }
+
+    public void endRow() { rows++; }
+
+    /** Assemble et publie le fichier (remplacement atomique) ; à appeler une fois toutes les lignes écrites. */
+    public void finish() throws IOException {
+        if (finished) throw new IllegalStateException("fichier déjà publié : " + file);
+        for (Spill s : spills) s.flush();
+        ByteBuffer head = header();
+        Path tmp = assembly();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (head.hasRemaining()) out.write(head);
+            for (Spill s : spills) {
+                pad(out);
+                long pos = 0, size = s.ch.size();
+                while (pos < size) pos += s.ch.transferTo(pos, size - pos, out);
+                if (!s.dict.isEmpty()) { pad(out); writeDict(out, s); }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    /** Supprime les fichiers temporaires ; sans {@link #finish()} préalable, rien n'est publié. */
+    @Override
+    public void close() throws IOException {
+        IOException first = null;
+        for (Spill s : spills) {
+            try { s.delete(); } catch (IOException e) { if (first == null) first = e; else first.addSuppressed(e); }
+        }
+        Files.deleteIfExists(assembly());
+        if (first != null) throw first;
+    }
+
+    private Path assembly() { return file.resolveSibling(file.getFileName() + ".tmp"); }
+
+    /** Les offsets sont calculés ici, avant d'écrire quoi que ce soit : mêmes règles d'alignement que finish(). */
+    private ByteBuffer header() throws IOException {
+        byte[][] names = new byte[columns.size()][];
+        int headLen = 4 + 4 + 4 + 4 + 8;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = columns.get(i).name().getBytes(StandardCharsets.UTF_8);
+            headLen += 1 + 2 + names[i].length + 8 + 8 + 8 + 8 + 8 + 4;
+        }
+        ByteBuffer b = ByteBuffer.allocate(headLen).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).putInt(headLen).putInt(columns.size()).putLong(rows);
+        long pos = headLen;
+        for (int i = 0; i < names.length; i++) {
+            Spill s = spills[i];
+            ColumnType t = columns.get(i).type();
+            long data = align(pos);
+            pos = data + s.ch.size();
+            long dict = 0;
+            if (!s.dict.isEmpty()) { dict = align(pos); pos = dict + dictBytes(s); }
+            long min, max;
+            if (t == ColumnType.DOUBLE) { min = Double.doubleToLongBits(s.dmin); max = Double.doubleToLongBits(s.dmax); }
+            else if (t == ColumnType.DICT) { min = 0; max = s.dict.size() - 1; }
+            else { min = s.min; max = s.max; }
+            b.put((byte) t.ordinal()).putShort((short) names[i].length).put(names[i])
+                    .putLong(s.nulls).putLong(min).putLong(max).putLong(data).putLong(dict).putInt(s.dict.size());
+        }
+        return b.flip();
+    }
+
+    private static long align(long pos) { return (pos + 7) & ~7L; }
+
+    private static void pad(FileChannel out) throws IOException {
+        long pos = out.position();
+        if (pos != align(pos)) out.write(ByteBuffer.allocate((int) (align(pos) - pos)));
+    }
+
+    private static long dictBytes(Spill s) {
+        long n = 0;
+        for (String v : s.dict.keySet()) n += 4 + v.getBytes(StandardCharsets.UTF_8).length;
+        return n;
+    }
+
+    private static void writeDict(FileChannel out, Spill s) throws IOException {
+        String[] byCode = new String[s.dict.size()];
+        s.dict.forEach((v, code) -> byCode[code] = v);
+        ByteBuffer b = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        for (String v : byCode) {
+            byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+            if (b.remaining() < 4 + bytes.length) {
+                b.flip();
+                while (b.hasRemaining()) out.write(b);
+                b = ByteBuffer.allocate(Math.max(BUFFER, 4 + bytes.length)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            b.putInt(bytes.length).put(bytes);
+        }
+        b.flip();
+        while (b.hasRemaining()) out.write(b);
+    }
+
+    /** Une colonne en cours d'écriture : tampon → fichier temporaire, statistiques. */
+    private static final class Spill {
+        final Path path;
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        final Map<String, Integer> dict = new HashMap<>();
+        long nulls, min, max;
+        double dmin, dmax;
+        boolean any;
+
+        Spill(Path path) throws IOException {
+            this.path = path;
+            this.ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        ByteBuffer room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+            return buf;
+        }
+
+        void stat(long v) {
+            if (!any || v < min) min = v;
+            if (!any || v > max) max = v;
+            any = true;
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        void delete() throws IOException {
+            ch.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.apilol.config;
 
+import com.example.apilol.db.BulkWriter.WriteStrategy;
+import com.example.apilol.db.FrameSeries;
 import lombok.Getter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import java.time.Duration;
 import java.util.List;
 
 @Getter
@@ -11,20 +15,80 @@ import java.util.List;
 public class AppProperties {
     private Riot riot = new Riot();
     private Target target = new Target();
+    private Ingest ingest = new Ingest();
+    private Cache cache = new Cache();
+    private Crawl crawl = new Crawl();
+    private Stats stats = new Stats();
+    private Partition partition = new Partition();
+    private Jobs jobs = new Jobs();
+    private Http http = new Http();
+    private Reprocess reprocess = new Reprocess();
+    private Export export = new Export();
 
     public static class Riot {
         private String apiKey;
         private String router = "europe";
+        /** routeurs crawlés en parallèle ; vide = {@code router} seul */
+        private List<String> routers;
         private String type;
         private List<Integer> queues;
+        /** {router} est remplacé par le routeur régional ; surchargé par les benchmarks (serveur local) */
+        private String baseUrl = "https://{router}.api.riotgames.com";
+        /** sert uniquement depuis le cache disque : ni clé API ni réseau */
+        private boolean replay;
         public String getApiKey() { return apiKey; }
         public void setApiKey(String apiKey) { this.apiKey = apiKey; }
         public String getRouter() { return router; }
         public void setRouter(String router) { this.router = router; }
+        public List<String> getRouters() { return routers == null || routers.isEmpty() ? List.of(router) : routers; }
+        public void setRouters(List<String> routers) { this.routers = routers; }
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
         public List<Integer> getQueues() { return queues; }
         public void setQueues(List<Integer> queues) { this.queues = queues; }
+        public String getBaseUrl() { return baseUrl; }
+        public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+        public boolean isReplay() { return replay; }
+        public void setReplay(boolean replay) { this.replay = replay; }
+    }
+    public static class Http {
+        /** connexions max par routeur (pool Reactor Netty) */
+        private int maxConnections = 64;
+        /** une connexion inactive au-delà est fermée (avant que le serveur ne la coupe) */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        /** délai max entre l'envoi de la requête et la fin de la réponse */
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        /** nouveaux essais sur 5xx / timeout / connexion coupée (les 429 ne comptent pas) */
+        private int maxRetries = 5;
+        /** 1er délai de backoff, doublé à chaque essai (jitter ±50 %) */
+        private Duration backoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        /** Accept-Encoding: gzip */
+        private boolean compress = true;
+        /**
+         * corps de réponse max gardé en mémoire : une timeline pèse 1 à 3 Mo décompressée, la
+         * limite par défaut de WebClient (256 Ko) la rejette (DataBufferLimitException)
+         */
+        private DataSize maxBodySize = DataSize.ofMegabytes(16);
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+        public int getMaxRetries() { return maxRetries; }
+        public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+        public Duration getBackoff() { return backoff; }
+        public void setBackoff(Duration backoff) { this.backoff = backoff; }
+        public Duration getMaxBackoff() { return maxBackoff; }
+        public void setMaxBackoff(Duration maxBackoff) { this.maxBackoff = maxBackoff; }
+        public boolean isCompress() { return compress; }
+        public void setCompress(boolean compress) { this.compress = compress; }
+        public DataSize getMaxBodySize() { return maxBodySize; }
+        public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
     }
     public static class Target {
         private String gameName;
@@ -37,4 +101,169 @@ public class AppProperties {
         public int getCount() { return count; }
         public void setCount(int count) { this.count = count; }
     }
-}
\ No newline at end of file
+    public static class Ingest {
+        /** matchs traités en parallèle (1 = séquentiel) */
+        private int concurrency = 8;
+        /** row | batch | copy */
+        private WriteStrategy writeStrategy = WriteStrategy.BATCH;
+        /** ne récupère que les matchs absents de lol.match, depuis le watermark du joueur */
+        private boolean incremental = true;
+        /** rows = une ligne par frame (participant_frame) ; packed = une ligne par participant (participant_series) */
+        private FrameSeries.Storage frameStorage = FrameSeries.Storage.ROWS;
+        /** journalise chaque appel Riot dans lol.ingestion_log */
+        private boolean httpLog = true;
+        /** garde le corps brut des timelines (lol.match_timeline) pour le mode reprocess */
+        private boolean storeTimeline = true;
+        /** puuids déjà écrits dans lol.summoner gardés en mémoire (LRU) */
+        private int summonerCacheSize = 100_000;
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+        public WriteStrategy getWriteStrategy() { return writeStrategy; }
+        public void setWriteStrategy(WriteStrategy writeStrategy) { this.writeStrategy = writeStrategy; }
+        public boolean isIncremental() { return incremental; }
+        public void setIncremental(boolean incremental) { this.incremental = incremental; }
+        public FrameSeries.Storage getFrameStorage() { return frameStorage; }
+        public void setFrameStorage(FrameSeries.Storage frameStorage) { this.frameStorage = frameStorage; }
+        public boolean isHttpLog() { return httpLog; }
+        public void setHttpLog(boolean httpLog) { this.httpLog = httpLog; }
+        public boolean isStoreTimeline() { return storeTimeline; }
+        public void setStoreTimeline(boolean storeTimeline) { this.storeTimeline = storeTimeline; }
+        public int getSummonerCacheSize() { return summonerCacheSize; }
+        public void setSummonerCacheSize(int summonerCacheSize) { this.summonerCacheSize = summonerCacheSize; }
+    }
+    public static class Cache {
+        private boolean enabled;
+        private String dir = "cache";
+        /** taille à partir de laquelle on ouvre un nouveau segment */
+        private long segmentBytes = 256L * 1024 * 1024;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public long getSegmentBytes() { return segmentBytes; }
+        public void setSegmentBytes(long segmentBytes) { this.segmentBytes = segmentBytes; }
+    }
+    public static class Crawl {
+        private boolean enabled;
+        /** profondeur max depuis le joueur de départ (0 = lui seul) */
+        private int maxDepth = 2;
+        /** arrêt après ce nombre de nouveaux matchs */
+        private int maxMatches = 1000;
+        /** joueurs traités en parallèle : la liste du suivant recouvre les matchs du courant */
+        private int workers = 2;
+        /** dimensionnement du filtre de Bloom des matchs vus */
+        private long expectedMatches = 5_000_000;
+        /** tentatives par joueur : un échec est re-tenté au crawl suivant tant qu'il reste en dessous */
+        private int maxAttempts = 3;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxDepth() { return maxDepth; }
+        public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+        public int getMaxMatches() { return maxMatches; }
+        public void setMaxMatches(int maxMatches) { this.maxMatches = maxMatches; }
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+        public long getExpectedMatches() { return expectedMatches; }
+        public void setExpectedMatches(long expectedMatches) { this.expectedMatches = expectedMatches; }
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    }
+    public static class Stats {
+        /** entrées max du cache de l'API de lecture (LRU) */
+        private int cacheSize = 10_000;
+        /** durée de vie d'une entrée ; le cache est aussi invalidé à chaque nouveau match */
+        private Duration cacheTtl = Duration.ofMinutes(5);
+        /** fusion des deltas de heatmap (lol.heatmap_delta) dans lol.heatmap ; retard max des heatmaps */
+        private Duration heatmapRollup = Duration.ofSeconds(30);
+        public int getCacheSize() { return cacheSize; }
+        public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+        public Duration getCacheTtl() { return cacheTtl; }
+        public void setCacheTtl(Duration cacheTtl) { this.cacheTtl = cacheTtl; }
+        public Duration getHeatmapRollup() { return heatmapRollup; }
+        public void setHeatmapRollup(Duration heatmapRollup) { this.heatmapRollup = heatmapRollup; }
+    }
+    public static class Partition {
+        /** au démarrage, archive les partitions timeline plus anciennes que N mois (0 = jamais) */
+        private int retainMonths;
+        /** destination des CSV gzip des partitions archivées */
+        private String archiveDir = "archive";
+        public int getRetainMonths() { return retainMonths; }
+        public void setRetainMonths(int retainMonths) { this.retainMonths = retainMonths; }
+        public String getArchiveDir() { return archiveDir; }
+        public void setArchiveDir(String archiveDir) { this.archiveDir = archiveDir; }
+    }
+    public static class Jobs {
+        /** consomme lol.ingest_job au lieu de l'ingestion ponctuelle */
+        private boolean worker;
+        /** jobs traités en parallèle par cette instance */
+        private int workers = 4;
+        /** au-delà, un job RUNNING est considéré abandonné et repris par un autre worker ; prolongé tous les tiers tant qu'il tourne */
+        private Duration lease = Duration.ofMinutes(5);
+        private int maxAttempts = 5;
+        /** délai avant le 1er nouvel essai, doublé à chaque échec (plafonné à 1 h) */
+        private Duration backoff = Duration.ofSeconds(30);
+        /** Riot IDs "gameName#tagLine" à enfiler au démarrage */
+        private List<String> enqueue = List.of();
+        public boolean isWorker() { return worker; }
+        public void setWorker(boolean worker) { this.worker = worker; }
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+        public Duration getLease() { return lease; }
+        public void setLease(Duration lease) { this.lease = lease; }
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+        public Duration getBackoff() { return backoff; }
+        public void setBackoff(Duration backoff) { this.backoff = backoff; }
+        public List<String> getEnqueue() { return enqueue; }
+        public void setEnqueue(List<String> enqueue) { this.enqueue = enqueue; }
+    }
+    public static class Reprocess {
+        /** reconstruit les tables relationnelles depuis lol.match.raw / lol.match_timeline, sans API */
+        private boolean enabled;
+        /** filtres optionnels sur lol.match */
+        private String patch;
+        private Integer queue;
+        /** threads de parsing (0 = un par cœur) */
+        private int parsers;
+        /** transactions d'écriture en parallèle (chacune prend une connexion du pool) */
+        private int writers = 2;
+        /** matchs par transaction d'écriture */
+        private int batchSize = 200;
+        /** lignes lues par aller-retour du curseur serveur */
+        private int fetchSize = 100;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getPatch() { return patch; }
+        public void setPatch(String patch) { this.patch = patch; }
+        public Integer getQueue() { return queue; }
+        public void setQueue(Integer queue) { this.queue = queue; }
+        public int getParsers() { return parsers; }
+        public void setParsers(int parsers) { this.parsers = parsers; }
+        public int getWriters() { return writers; }
+        public void setWriters(int writers) { this.writers = writers; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+    }
+    public static class Export {
+        /** exporte match / participant / frames en fichiers colonnes (.lolc) puis s'arrête */
+        private boolean enabled;
+        private String dir = "export";
+        /** filtres optionnels sur lol.match */
+        private String patch;
+        private Integer queue;
+        /** lignes lues par aller-retour du curseur serveur */
+        private int fetchSize = 10_000;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public String getPatch() { return patch; }
+        public void setPatch(String patch) { this.patch = patch; }
+        public Integer getQueue() { return queue; }
+        public void setQueue(Integer queue) { this.queue = queue; }
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+    }
+}
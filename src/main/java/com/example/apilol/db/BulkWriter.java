@@ -0,0 +1,127 @@
+package com.example.apilol.db;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Écriture d'un lot de lignes dans une {@link Table} selon une {@link WriteStrategy}.
+ * S'exécute dans la transaction courante (connexion liée par Spring).
+ * Métriques : {@code db.write} (durée par table et stratégie) et {@code db.rows} (lignes par table).
+ */
+@Component
+public class BulkWriter {
+    public enum WriteStrategy {
+        /** un INSERT par ligne (historique) */
+        ROW,
+        /** batch JDBC ; avec reWriteBatchedInserts=true le driver envoie des INSERT multi-lignes */
+        BATCH,
+        /** COPY ... FROM STDIN (CSV) via CopyManager */
+        COPY
+    }
+
+    private final JdbcTemplate jdbc;
+    private final MeterRegistry meters;
+    public BulkWriter(Db db, MeterRegistry meters) { this.jdbc = db.jdbc(); this.meters = meters; }
+
+    public void write(WriteStrategy strategy, Table table, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        String t = table.name().substring(table.name().indexOf('.') + 1);
+        Timer.builder("db.write").tag("table", t).tag("strategy", strategy.name().toLowerCase())
+                .register(meters).record(() -> doWrite(strategy, table, rows));
+        Counter.builder("db.rows").tag("table", t).register(meters).increment(rows.size());
+    }
+
+    private void doWrite(WriteStrategy strategy, Table table, List<Object[]> rows) {
+        switch (strategy) {
+            case ROW -> {
+                String sql = table.insertSql();
+                for (Object[] row : rows) jdbc.update(sql, ps -> bind(ps, row));
+            }
+            case BATCH -> jdbc.batchUpdate(table.insertSql(), new BatchPreparedStatementSetter() {
+                @Override public void setValues(PreparedStatement ps, int i) throws SQLException { bind(ps, rows.get(i)); }
+                @Override public int getBatchSize() { return rows.size(); }
+            });
+            case COPY -> copy(table, rows);
+        }
+    }
+
+    private void copy(Table table, List<Object[]> rows) {
+        jdbc.execute((ConnectionCallback<Long>) con -> {
+            PGConnection pg = con.unwrap(PGConnection.class);
+            var out = new PGCopyOutputStream(pg, table.copySql(), 1 << 16);
+            try {
+                Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        if (i > 0) w.write(',');
+                        writeCsv(w, row[i]);
+                    }
+                    w.write('\n');
+                }
+                w.flush();
+            } catch (IOException e) {
+                out.cancelCopy();
+                throw new SQLException("COPY " + table.name() + " échoué", e);
+            }
+            return out.endCopy();
+        });
+    }
+
+    /** setObject partout ; pgjdbc sait encoder Integer[] en int4[]. */
+    static void bind(PreparedStatement ps, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null) ps.setNull(i + 1, Types.NULL);
+            else ps.setObject(i + 1, row[i]);
+        }
+    }
+
+    /** CSV façon PostgreSQL : champ vide non quoté = NULL, tout le reste entre guillemets si besoin. */
+    private static void writeCsv(Writer w, Object v) throws IOException {
+        if (v == null) return;
+        if (v instanceof Number || v instanceof Boolean) { w.write(v.toString()); return; }
+        String s;
+        if (v instanceof PGobject o) s = o.getValue();
+        else if (v instanceof Object[] arr) s = pgArray(List.of(arr));
+        else if (v instanceof int[] arr) s = pgArray(Arrays.stream(arr).boxed().toList());
+        else if (v instanceof Collection<?> c) s = pgArray(c);
+        else s = v.toString();
+        if (s == null) return;
+        w.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') w.write('"');
+            w.write(c);
+        }
+        w.write('"');
+    }
+
+    /** Tableaux numériques uniquement (assisting_ids, séries packées). */
+    private static String pgArray(Collection<?> c) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Object o : c) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(o == null ? "NULL" : o.toString());
+        }
+        return sb.append('}').toString();
+    }
+}
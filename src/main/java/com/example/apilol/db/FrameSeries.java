@@ -0,0 +1,134 @@
+package com.example.apilol.db;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.postgresql.util.PGobject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Format "packé" des frames d'un participant (lol.participant_series, V8) : une ligne par
+ * (match, participant), chaque métrique en {@code int[]} encodé en deltas (premier élément
+ * absolu, puis écarts au précédent). {@code damage} concatène les {@link #DAMAGE_FIELDS}
+ * champ par champ, chaque tranche encodée séparément. Une valeur absente reprend la précédente.
+ * <p>
+ * L'élément i d'une série est la frame {@code frame_index = i} : une frame manquante pour un
+ * participant est comblée (ts_ms de la même frame chez un autre participant, valeurs
+ * précédentes pour le reste) au lieu de décaler les suivantes.
+ */
+public final class FrameSeries {
+    /** lol.participant_frame (une ligne par frame) ou lol.participant_series (une ligne par participant) */
+    public enum Storage { ROWS, PACKED }
+
+    public static final List<String> DAMAGE_FIELDS = List.of(
+            "magicDamageDone", "magicDamageDoneToChampions", "magicDamageTaken",
+            "physicalDamageDone", "physicalDamageDoneToChampions", "physicalDamageTaken",
+            "totalDamageDone", "totalDamageDoneToChampions", "totalDamageTaken",
+            "trueDamageDone", "trueDamageDoneToChampions", "trueDamageTaken");
+
+    /** Séries décodées d'un participant, index = frame_index. */
+    public record Series(String matchId, int participantId, int[] tsMs, int[] totalGold, int[] currentGold,
+                         int[] xp, int[] level, int[] minionsKilled, int[] jungleMinionsKilled,
+                         int[] positionX, int[] positionY, Map<String, int[]> damage) {
+        public int frames() { return tsMs.length; }
+    }
+
+    /** colonnes de participant_frame (ordre de {@link Table#PARTICIPANT_FRAME}) reprises telles quelles */
+    private static final int[] SCALAR_COLS = {2, 4, 5, 6, 7, 8, 9, 10, 11};
+    private static final int FRAME_INDEX = 1, TS = 2, PARTICIPANT = 3, DAMAGE = 12;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private FrameSeries() {}
+
+    /** Lignes de {@link Table#PARTICIPANT_SERIES} à partir des lignes de {@link Table#PARTICIPANT_FRAME} d'un match. */
+    public static List<Object[]> pack(String matchId, long gameCreationMs, List<Object[]> frames) {
+        Map<Integer, Map<Integer, Object[]>> byParticipant = new TreeMap<>();
+        Map<Integer, Object> tsOf = new HashMap<>(); // frame_index → ts_ms, commun aux participants
+        for (Object[] f : frames) {
+            int idx = (Integer) f[FRAME_INDEX];
+            byParticipant.computeIfAbsent((Integer) f[PARTICIPANT], k -> new HashMap<>()).put(idx, f);
+            if (f[TS] != null) tsOf.putIfAbsent(idx, f[TS]);
+        }
+        List<Object[]> out = new ArrayList<>(byParticipant.size());
+        byParticipant.forEach((pid, byIndex) -> {
+            int n = Collections.max(byIndex.keySet()) + 1;
+            Object[][] list = new Object[n][];
+            byIndex.forEach((idx, f) -> list[idx] = f);
+            Object[] row = new Object[3 + SCALAR_COLS.length + 2];
+            row[0] = matchId;
+            row[1] = pid;
+            row[2] = n;
+            for (int c = 0; c < SCALAR_COLS.length; c++) {
+                int col = SCALAR_COLS[c];
+                int[] v = new int[n];
+                for (int i = 0; i < n; i++) {
+                    Object value = list[i] != null ? list[i][col] : null;
+                    if (value == null && col == TS) value = tsOf.get(i);
+                    v[i] = asInt(value, i > 0 ? v[i - 1] : 0);
+                }
+                row[3 + c] = deltaEncode(v, 0, n);
+            }
+            int[] damage = new int[DAMAGE_FIELDS.size() * n];
+            for (int i = 0; i < n; i++) damage(list[i] != null ? list[i][DAMAGE] : null, damage, i, n);
+            for (int d = 0; d < DAMAGE_FIELDS.size(); d++) deltaEncodeInPlace(damage, d * n, n);
+            row[3 + SCALAR_COLS.length] = damage;
+            row[row.length - 1] = gameCreationMs;
+            out.add(row);
+        });
+        return out;
+    }
+
+    /** Décode une ligne lue de lol.participant_series (colonnes int[] encodées). */
+    public static Series decode(String matchId, int participantId, int[] ts, int[] totalGold, int[] currentGold,
+                                int[] xp, int[] level, int[] cs, int[] jungleCs, int[] x, int[] y, int[] damage) {
+        int n = ts.length;
+        Map<String, int[]> dmg = new LinkedHashMap<>();
+        for (int d = 0; d < DAMAGE_FIELDS.size(); d++) {
+            int[] v = damage.length >= (d + 1) * n ? Arrays.copyOfRange(damage, d * n, (d + 1) * n) : new int[n];
+            dmg.put(DAMAGE_FIELDS.get(d), deltaDecode(v));
+        }
+        return new Series(matchId, participantId, deltaDecode(ts), deltaDecode(totalGold), deltaDecode(currentGold),
+                deltaDecode(xp), deltaDecode(level), deltaDecode(cs), deltaDecode(jungleCs),
+                deltaDecode(x), deltaDecode(y), dmg);
+    }
+
+    static int[] deltaEncode(int[] v, int from, int n) {
+        int[] out = Arrays.copyOfRange(v, from, from + n);
+        deltaEncodeInPlace(out, 0, n);
+        return out;
+    }
+
+    private static void deltaEncodeInPlace(int[] v, int from, int n) {
+        for (int i = from + n - 1; i > from; i--) v[i] -= v[i - 1];
+    }
+
+    static int[] deltaDecode(int[] v) {
+        int[] out = v.clone();
+        for (int i = 1; i < out.length; i++) out[i] += out[i - 1];
+        return out;
+    }
+
+    private static int asInt(Object o, int previous) {
+        return o instanceof Number n ? n.intValue() : previous;
+    }
+
+    private static void damage(Object jsonb, int[] out, int frame, int n) {
+        String json = jsonb instanceof PGobject o ? o.getValue() : null;
+        if (frame > 0) for (int d = 0; d < DAMAGE_FIELDS.size(); d++) out[d * n + frame] = out[d * n + frame - 1];
+        if (json == null) return;
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                int d = DAMAGE_FIELDS.indexOf(p.currentName());
+                JsonToken t = p.nextToken();
+                if (d >= 0 && t.isNumeric()) out[d * n + frame] = p.getValueAsInt();
+                else p.skipChildren();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
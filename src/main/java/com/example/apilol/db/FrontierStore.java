@@ -0,0 +1,83 @@
+package com.example.apilol.db;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Frontière du crawler (lol.crawl_frontier). */
+@Component
+public class FrontierStore {
+    public record Node(String puuid, int depth, String router) {}
+
+    private final JdbcTemplate jdbc;
+    public FrontierStore(Db db) { this.jdbc = db.jdbc(); }
+
+    public void seed(String puuid, String router) {
+        jdbc.update("""
+            INSERT INTO lol.crawl_frontier(puuid, depth, region_router) VALUES (?, 0, ?)
+            ON CONFLICT (puuid) DO NOTHING
+        """, puuid, router);
+    }
+
+    /**
+     * Au démarrage : les joueurs en cours lors d'un arrêt brutal redeviennent à faire (leurs matchs
+     * stockés seront sautés), de même que les échecs ayant moins de {@code maxAttempts} tentatives.
+     */
+    public int resetInProgress(int maxAttempts) {
+        return jdbc.update("""
+            UPDATE lol.crawl_frontier SET status = 'PENDING'
+            WHERE status = 'IN_PROGRESS' OR (status = 'FAILED' AND attempts < ?)
+        """, maxAttempts);
+    }
+
+    /**
+     * Réserve le prochain joueur d'une région (plus faible profondeur d'abord), null si vide.
+     * @param defaultRouter routeur des lignes sans région (antérieures au multi-région)
+     */
+    public Node claim(String router, String defaultRouter, int maxDepth) {
+        List<Node> l = jdbc.query("""
+            UPDATE lol.crawl_frontier SET status = 'IN_PROGRESS'
+            WHERE puuid = (
+              SELECT puuid FROM lol.crawl_frontier
+              WHERE status = 'PENDING' AND depth <= ? AND COALESCE(region_router, ?) = ?
+              ORDER BY depth, enqueued_at
+              LIMIT 1
+              FOR UPDATE SKIP LOCKED)
+            RETURNING puuid, depth
+        """, (rs, i) -> new Node(rs.getString(1), rs.getInt(2), router), maxDepth, defaultRouter, router);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    public void done(String puuid, int newMatches) {
+        jdbc.update("""
+            UPDATE lol.crawl_frontier SET status = 'DONE', visited_at = now(), new_matches = ?, last_error = NULL
+            WHERE puuid = ?
+        """, newMatches, puuid);
+    }
+
+    public void failed(String puuid, String error) {
+        jdbc.update("""
+            UPDATE lol.crawl_frontier SET status = 'FAILED', visited_at = now(), attempts = attempts + 1, last_error = ?
+            WHERE puuid = ?
+        """, error, puuid);
+    }
+
+    /**
+     * Ajoute les participants des matchs donnés à la profondeur {@code depth} (déjà connus : ignorés),
+     * avec la région de leur match.
+     */
+    public int enqueueParticipants(List<String> matchIds, int depth) {
+        if (matchIds.isEmpty()) return 0;
+        return jdbc.update("""
+            INSERT INTO lol.crawl_frontier(puuid, depth, region_router)
+            SELECT DISTINCT ON (p.puuid) p.puuid, ?, m.region_router
+            FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id
+            WHERE p.match_id = ANY(?) AND p.puuid IS NOT NULL
+            ON CONFLICT (puuid) DO NOTHING
+        """, ps -> {
+            ps.setInt(1, depth);
+            ps.setArray(2, ps.getConnection().createArrayOf("text", matchIds.toArray()));
+        });
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.apilol.db;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Heatmaps pré-agrégées (lol.heatmap, V6). À l'ingestion, les wards posées et les positions
+ * des frames d'un match sont comptées dans des grilles {@link #GRID}×{@link #GRID} par clé,
+ * puis insérés sous forme éparse (indices, comptes) dans lol.heatmap_delta, en append-only :
+ * aucun verrou partagé entre matchs concurrents. {@link #rollup} fusionne périodiquement ces deltas
+ * dans lol.heatmap. À la lecture, les grilles qui passent le filtre sont sommées : coût
+ * proportionnel au nombre de grilles, pas d'events.
+ * <p>
+ * Les events WARD_PLACED de Riot n'ont pas de position : on prend celle du poseur à la
+ * frame la plus proche (échantillonnée chaque minute).
+ */
+@Component
+public class HeatmapStore {
+    public static final int GRID = 64;
+    /** Faille de l'invocateur : coordonnées ~0..15000 sur les deux axes */
+    public static final int MAP_SIZE = 15_000;
+    public static final int BUCKET_MINUTES = 5;
+    /** dernière tranche : 40 min et plus */
+    public static final int MAX_BUCKET = 8;
+
+    public enum Kind { WARD, POSITION }
+
+    /** Clé d'une grille ; "" / 0 pour les dimensions inconnues. */
+    public record Key(Kind kind, String patch, int queueId, int teamId, String wardType, int timeBucket) {}
+
+    /** Filtre de lecture : null = toutes les valeurs. Minutes : [fromMinute, toMinute[ arrondies aux tranches. */
+    public record Filter(Kind kind, List<String> patches, Integer queueId, Integer teamId, String wardType,
+                         Integer fromMinute, Integer toMinute) {}
+
+    private static final String INSERT_DELTA = """
+        INSERT INTO lol.heatmap_delta (kind, patch, queue_id, team_id, ward_type, time_bucket, idx, cnt)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    /**
+     * Consomme les plus anciens deltas, les somme par grille et cellule, et les fusionne dans
+     * lol.heatmap en une instruction. Grilles verrouillées dans l'ordre de leur clé ;
+     * SKIP LOCKED : deux rollups concurrents se partagent les deltas.
+     */
+    private static final String ROLLUP = """
+        WITH d AS (
+          DELETE FROM lol.heatmap_delta
+          WHERE id IN (SELECT id FROM lol.heatmap_delta ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+          RETURNING kind, patch, queue_id, team_id, ward_type, time_bucket, idx, cnt
+        ), c AS (
+          SELECT kind, patch, queue_id, team_id, ward_type, time_bucket, u.i, sum(u.c)::int AS c
+          FROM d, unnest(d.idx, d.cnt) AS u(i, c)
+          GROUP BY 1, 2, 3, 4, 5, 6, 7
+        )
+        INSERT INTO lol.heatmap AS h (kind, patch, queue_id, team_id, ward_type, time_bucket, cells)
+        SELECT kind, patch, queue_id, team_id, ward_type, time_bucket,
+               lol.heatmap_add(array_fill(0, ARRAY[%d]), array_agg(i), array_agg(c))
+        FROM c
+        GROUP BY 1, 2, 3, 4, 5, 6
+        ORDER BY 1, 2, 3, 4, 5, 6
+        ON CONFLICT (kind, patch, queue_id, team_id, ward_type, time_bucket)
+        DO UPDATE SET cells = lol.heatmap_sum(h.cells, EXCLUDED.cells)
+    """.formatted(GRID * GRID);
+
+    /** deltas consommés par instruction de rollup */
+    private static final int ROLLUP_BATCH = 5_000;
+
+    private final JdbcTemplate jdbc;
+    public HeatmapStore(Db db) { this.jdbc = db.jdbc(); }
+
+    /**
+     * Enregistre les comptes d'un match en deltas ; à appeler une seule fois par match, dans sa
+     * transaction. Visibles à la lecture après le prochain {@link #rollup}.
+     */
+    public void add(MatchRows rows) {
+        Map<Key, Map<Integer, Integer>> grids = bin(rows);
+        if (grids.isEmpty()) return;
+        List<Map.Entry<Key, Map<Integer, Integer>>> entries = new ArrayList<>(grids.entrySet());
+        jdbc.batchUpdate(INSERT_DELTA, new BatchPreparedStatementSetter() {
+            @Override public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Key k = entries.get(i).getKey();
+                Map<Integer, Integer> cells = entries.get(i).getValue();
+                Integer[] idx = new Integer[cells.size()], cnt = new Integer[cells.size()];
+                int j = 0;
+                for (var c : cells.entrySet()) { idx[j] = c.getKey() + 1; cnt[j++] = c.getValue(); }
+                ps.setString(1, k.kind().name());
+                ps.setString(2, k.patch());
+                ps.setInt(3, k.queueId());
+                ps.setInt(4, k.teamId());
+                ps.setString(5, k.wardType());
+                ps.setInt(6, k.timeBucket());
+                ps.setArray(7, ps.getConnection().createArrayOf("int4", idx));
+                ps.setArray(8, ps.getConnection().createArrayOf("int4", cnt));
+            }
+            @Override public int getBatchSize() { return entries.size(); }
+        });
+    }
+
+    /** Fusionne tous les deltas en attente dans lol.heatmap. @return grilles mises à jour */
+    public int rollup() {
+        int total = 0, n;
+        do {
+            n = jdbc.update(ROLLUP, ROLLUP_BATCH);
+            total += n;
+        } while (n > 0);
+        return total;
+    }
+
+    /** Somme des grilles qui passent le filtre ; tableau GRID*GRID, index = y * GRID + x. */
+    public int[] query(Filter f) {
+        StringBuilder sql = new StringBuilder("SELECT array_send(cells) FROM lol.heatmap WHERE kind = ?");
+        List<Object> args = new ArrayList<>(List.of(f.kind().name()));
+        if (f.patches() != null && !f.patches().isEmpty()) {
+            sql.append(" AND patch = ANY(?)");
+            args.add(f.patches().toArray(new String[0]));
+        }
+        if (f.queueId() != null) { sql.append(" AND queue_id = ?"); args.add(f.queueId()); }
+        if (f.teamId() != null) { sql.append(" AND team_id = ?"); args.add(f.teamId()); }
+        if (f.wardType() != null) { sql.append(" AND ward_type = ?"); args.add(f.wardType()); }
+        if (f.fromMinute() != null) { sql.append(" AND time_bucket >= ?"); args.add(bucket(f.fromMinute() * 60_000L)); }
+        if (f.toMinute() != null) { sql.append(" AND time_bucket < ?"); args.add(bucket(Math.max(0, f.toMinute() - 1) * 60_000L) + 1); }
+
+        int[] sum = new int[GRID * GRID];
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            for (int i = 0; i < args.size(); i++) {
+                Object a = args.get(i);
+                if (a instanceof String[] arr) ps.setArray(i + 1, con.createArrayOf("text", arr));
+                else ps.setObject(i + 1, a);
+            }
+            return ps;
+        }, rs -> { addBinaryArray(sum, rs.getBytes(1)); });
+        return sum;
+    }
+
+    /** Format binaire d'array_send (1 dimension, int4) : en-tête 20 octets, puis (longueur, valeur) par élément. */
+    private static void addBinaryArray(int[] sum, byte[] bin) {
+        ByteBuffer b = ByteBuffer.wrap(bin);
+        if (b.getInt() != 1) return;
+        b.getInt(); b.getInt();                   // flags, oid
+        int n = Math.min(b.getInt(), sum.length);
+        b.getInt();                               // lbound
+        for (int i = 0; i < n; i++) {
+            int len = b.getInt();
+            if (len == 4) sum[i] += b.getInt();
+            else if (len > 0) b.position(b.position() + len);
+        }
+    }
+
+    private static Map<Key, Map<Integer, Integer>> bin(MatchRows rows) {
+        String patch = Objects.toString(rows.match[3], "");
+        int queue = rows.match[4] instanceof Integer q ? q : 0;
+        Map<Integer, Integer> teamOf = new HashMap<>();
+        for (Object[] p : rows.participants)
+            if (p[1] instanceof Integer pid && p[3] instanceof Integer team) teamOf.put(pid, team);
+
+        // positions par participant et frame : sert aux frames ET à placer les wards
+        Map<Integer, TreeMap<Long, int[]>> track = new HashMap<>();
+        Map<Key, Map<Integer, Integer>> grids = new HashMap<>();
+        for (Object[] fr : rows.frames) {
+            if (!(fr[3] instanceof Integer pid) || !(fr[2] instanceof Long ts)
+                    || !(fr[10] instanceof Integer x) || !(fr[11] instanceof Integer y)) continue;
+            track.computeIfAbsent(pid, k -> new TreeMap<>()).put(ts, new int[]{x, y});
+            Integer team = teamOf.get(pid);
+            if (team == null) continue;
+            count(grids, new Key(Kind.POSITION, patch, queue, team, "", bucket(ts)), x, y);
+        }
+        for (Object[] ev : rows.events) {
+            if (!"WARD_PLACED".equals(ev[2]) || !(ev[3] instanceof Integer pid) || !(ev[1] instanceof Long ts)) continue;
+            Integer team = teamOf.get(pid);
+            if (team == null) continue;
+            int[] pos = ev[8] instanceof Integer x && ev[9] instanceof Integer y ? new int[]{x, y} : nearest(track.get(pid), ts);
+            if (pos == null) continue;
+            String ward = Objects.toString(ev[15], "UNDEFINED");
+            count(grids, new Key(Kind.WARD, patch, queue, team, ward, bucket(ts)), pos[0], pos[1]);
+        }
+        return grids;
+    }
+
+    private static int[] nearest(TreeMap<Long, int[]> positions, long ts) {
+        if (positions == null) return null;
+        var lo = positions.floorEntry(ts);
+        var hi = positions.ceilingEntry(ts);
+        if (lo == null) return hi == null ? null : hi.getValue();
+        if (hi == null) return lo.getValue();
+        return ts - lo.getKey() <= hi.getKey() - ts ? lo.getValue() : hi.getValue();
+    }
+
+    private static void count(Map<Key, Map<Integer, Integer>> grids, Key key, int x, int y) {
+        grids.computeIfAbsent(key, k -> new HashMap<>()).merge(cell(x) + GRID * cell(y), 1, Integer::sum);
+    }
+
+    static int cell(int coord) { return Math.clamp((long) coord * GRID / MAP_SIZE, 0, GRID - 1); }
+
+    static int bucket(long tsMs) { return (int) Math.min(MAX_BUCKET, tsMs / (BUCKET_MINUTES * 60_000L)); }
+}
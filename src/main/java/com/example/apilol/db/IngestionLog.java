@@ -0,0 +1,80 @@
+package com.example.apilol.db;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.BulkWriter.WriteStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal des appels HTTP dans {@code lol.ingestion_log}, hors du chemin d'ingestion :
+ * {@link #record} ne fait qu'empiler dans une file bornée, un thread dédié l'écrit par lots.
+ * File pleine (base lente ou absente) → l'entrée est abandonnée et comptée, jamais d'attente.
+ */
+@Component
+public class IngestionLog {
+    private static final int CAPACITY = 10_000;
+    private static final int BATCH = 500;
+
+    private final BulkWriter writer;
+    private final boolean enabled;
+    private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Counter dropped;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public IngestionLog(BulkWriter writer, AppProperties props, MeterRegistry meters) {
+        this.writer = writer;
+        this.enabled = props.getIngest().isHttpLog();
+        this.dropped = meters.counter("ingestion_log.dropped");
+        this.flusher = enabled ? Thread.ofPlatform().daemon().name("ingestion-log").start(this::run) : null;
+    }
+
+    /** @param retryAfter secondes (429), null sinon */
+    public void record(String method, String url, int status, Integer retryAfter, String note) {
+        if (!enabled) return;
+        if (!queue.offer(new Object[]{"riot", method, url, status, retryAfter, note})) dropped.increment();
+    }
+
+    private void run() {
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        while (running) {
+            try {
+                Object[] first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Object[]> batch) {
+        try {
+            writer.write(WriteStrategy.BATCH, Table.INGESTION_LOG, batch);
+        } catch (RuntimeException e) {
+            dropped.increment(batch.size());
+            System.err.printf("ingestion_log : %d entrées perdues (%s)%n", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!enabled) return;
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        List<Object[]> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.apilol.db;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * File de travaux lol.ingest_job (V9). Un job est réservé pour une durée de bail ; un
+ * worker mort laisse expirer son bail et le job est repris par un autre. Chaque réservation
+ * reçoit un jeton aléatoire ({@code leased_by}) : les transitions de fin ne s'appliquent que
+ * si le bail porte toujours ce jeton, même quand le même worker a repris le job entre-temps.
+ */
+@Component
+public class JobStore {
+    public enum Kind { PLAYER, MATCH }
+
+    /** @param lease jeton de la réservation, à présenter pour prolonger ou terminer le job */
+    public record Job(long id, Kind kind, String payload, String router, int attempts, String lease) {}
+
+    private final JdbcTemplate jdbc;
+    public JobStore(Db db) { this.jdbc = db.jdbc(); }
+
+    /**
+     * Enfile un joueur ; s'il a déjà un job terminé (ou mort), il est remis à faire.
+     * @return true si le job est (re)mis en attente
+     */
+    public boolean enqueuePlayer(String payload, String router) {
+        return jdbc.update("""
+            INSERT INTO lol.ingest_job(kind, payload, router) VALUES ('PLAYER', ?, ?)
+            ON CONFLICT (kind, payload) DO UPDATE SET
+              status = 'PENDING', attempts = 0, run_after = now(), last_error = NULL, updated_at = now()
+            WHERE lol.ingest_job.status IN ('DONE', 'DEAD')
+        """, payload, router) > 0;
+    }
+
+    /** Enfile des matchs (déjà présents dans la file : ignorés). @return nombre ajouté */
+    public int enqueueMatches(List<String> matchIds) {
+        if (matchIds.isEmpty()) return 0;
+        return jdbc.update("""
+            INSERT INTO lol.ingest_job(kind, payload)
+            SELECT 'MATCH', id FROM unnest(?::text[]) AS id
+            ON CONFLICT (kind, payload) DO NOTHING
+        """, ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", matchIds.toArray())));
+    }
+
+    /**
+     * Réserve jusqu'à {@code limit} jobs prêts (ou dont le bail a expiré). Un bail expiré
+     * après {@code maxAttempts} essais (job qui tue son worker à chaque fois) passe en lettre
+     * morte au lieu d'être repris.
+     * @param worker identifiant lisible du worker, préfixe du jeton de bail
+     */
+    public List<Job> claim(String worker, Duration lease, int limit, int maxAttempts) {
+        String token = worker + "/" + UUID.randomUUID();
+        jdbc.update("""
+            UPDATE lol.ingest_job SET status = 'DEAD', lease_until = NULL, updated_at = now(),
+                   last_error = COALESCE(last_error || ' ; ', '') || 'bail expiré ' || attempts || ' fois'
+            WHERE status = 'RUNNING' AND lease_until < now() AND attempts >= ?
+        """, maxAttempts);
+        return jdbc.query("""
+            UPDATE lol.ingest_job SET status = 'RUNNING', leased_by = ?, attempts = attempts + 1,
+                   lease_until = now() + make_interval(secs => ?), updated_at = now()
+            WHERE id IN (
+              SELECT id FROM lol.ingest_job
+              WHERE (status = 'PENDING' AND run_after <= now())
+                 OR (status = 'RUNNING' AND lease_until < now() AND attempts < ?)
+              ORDER BY run_after
+              LIMIT ?
+              FOR UPDATE SKIP LOCKED)
+            RETURNING id, kind, payload, router, attempts
+        """, (rs, i) -> new Job(rs.getLong(1), Kind.valueOf(rs.getString(2)), rs.getString(3), rs.getString(4),
+                rs.getInt(5), token), token, lease.toSeconds(), maxAttempts, limit);
+    }
+
+    /** Prolonge le bail d'un job en cours. @return false si le bail a été perdu */
+    public boolean extend(Job job, Duration lease) {
+        return jdbc.update("""
+            UPDATE lol.ingest_job SET lease_until = now() + make_interval(secs => ?), updated_at = now()
+            WHERE id = ? AND leased_by = ? AND status = 'RUNNING'
+        """, lease.toSeconds(), job.id(), job.lease()) > 0;
+    }
+
+    public void done(Job job) {
+        jdbc.update("""
+            UPDATE lol.ingest_job SET status = 'DONE', lease_until = NULL, last_error = NULL, updated_at = now()
+            WHERE id = ? AND leased_by = ? AND status = 'RUNNING'
+        """, job.id(), job.lease());
+    }
+
+    /** Échec : nouvel essai après {@code retryIn}, ou lettre morte si {@code retryIn} est null. */
+    public void failed(Job job, String error, Duration retryIn) {
+        jdbc.update("""
+            UPDATE lol.ingest_job SET
+              status = CASE WHEN ?::bigint IS NULL THEN 'DEAD' ELSE 'PENDING' END,
+              run_after = now() + make_interval(secs => COALESCE(?::bigint, 0)),
+              lease_until = NULL, last_error = ?, updated_at = now()
+            WHERE id = ? AND leased_by = ? AND status = 'RUNNING'
+        """, ps -> {
+            if (retryIn == null) { ps.setNull(1, Types.BIGINT); ps.setNull(2, Types.BIGINT); }
+            else { ps.setLong(1, retryIn.toSeconds()); ps.setLong(2, retryIn.toSeconds()); }
+            ps.setString(3, error);
+            ps.setLong(4, job.id());
+            ps.setString(5, job.lease());
+        });
+    }
+
+    /** Nombre de jobs par "KIND STATUS". */
+    public Map<String, Long> counts() {
+        Map<String, Long> out = new TreeMap<>();
+        jdbc.query("SELECT kind, status, count(*) FROM lol.ingest_job GROUP BY 1, 2",
+                rs -> { out.put(rs.getString(1) + " " + rs.getString(2), rs.getLong(3)); });
+        return out;
+    }
+}
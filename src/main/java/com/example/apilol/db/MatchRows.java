@@ -0,0 +1,35 @@
+package com.example.apilol.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lignes d'un match prêtes à écrire, dans l'ordre des colonnes de {@link Table}.
+ * {@code match} suit l'ordre de l'INSERT de {@link MatchStore}.
+ */
+public class MatchRows {
+    /** index de lol.match.raw dans {@code match} : corps brut du match, en octets UTF-8 */
+    public static final int RAW = 13;
+
+    public final String matchId;
+    public Object[] match;
+    public final List<Object[]> teams = new ArrayList<>();
+    public final List<Object[]> participants = new ArrayList<>();
+    public final List<Object[]> frames = new ArrayList<>();
+    public final List<Object[]> events = new ArrayList<>();
+    /** corps brut de la timeline (lol.match_timeline), null sans timeline */
+    public byte[] timelineRaw;
+
+    public MatchRows(String matchId) { this.matchId = matchId; }
+
+    /** Libère les corps bruts quand ils ne seront pas réécrits (reconstruction). */
+    public void dropRaw() {
+        timelineRaw = null;
+        if (match != null) match[RAW] = null;
+    }
+
+    /** Clé de partition des frames / events (lol.match.game_creation_ms, 0 si absente). */
+    public long gameCreationMs() {
+        return match != null && match[5] instanceof Long l ? l : 0L;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.apilol.db;
+
+import com.example.apilol.config.AppProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Persistance d'un match complet (match, teams, participants, frames, events)
+ * en une seule transaction. Les lignes filles sont remplacées, ce qui rend la
+ * ré-ingestion idempotente (timeline_event n'a pas de clé naturelle) et permet le COPY.
+ * Les joueurs des participants sont insérés au passage ({@link SummonerStore}).
+ * Les agrégats de lecture ({@link StatsStore}) sont mis à jour dans la même transaction ; les heatmaps
+ * n'y reçoivent que des deltas append-only ({@link HeatmapStore#add}).
+ */
+@Component
+public class MatchStore {
+    private static final String UPSERT_MATCH = """
+        INSERT INTO lol.match(match_id, data_version, game_version, patch, queue_id,
+          game_creation_ms, game_start_ms, game_end_ms, game_duration_s, map_id, platform_id,
+          tournament_code, region_router, raw)
+        VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,convert_from(?, 'UTF8')::jsonb)
+        ON CONFLICT (match_id) DO UPDATE SET raw = EXCLUDED.raw
+    """;
+    /** reprocess : colonnes dérivées seulement, raw est la source */
+    private static final String UPDATE_MATCH = """
+        UPDATE lol.match SET data_version = ?, game_version = ?, patch = ?, queue_id = ?,
+          game_creation_ms = ?, game_start_ms = ?, game_end_ms = ?, game_duration_s = ?, map_id = ?,
+          platform_id = ?, tournament_code = ?, region_router = ?
+        WHERE match_id = ?
+    """;
+    private static final int MATCH_RAW = MatchRows.RAW;
+    private static final int DEADLOCK_RETRIES = 5;
+
+    private final JdbcTemplate jdbc;
+    private final BulkWriter writer;
+    private final TransactionTemplate tx;
+    private final AppProperties cfg;
+    private final StatsStore stats;
+    private final HeatmapStore heatmaps;
+    private final PartitionManager partitions;
+    private final SummonerStore summoners;
+
+    public MatchStore(Db db, BulkWriter writer, TransactionTemplate tx, AppProperties cfg, StatsStore stats,
+                      HeatmapStore heatmaps, PartitionManager partitions, SummonerStore summoners) {
+        this.jdbc = db.jdbc();
+        this.writer = writer;
+        this.tx = tx;
+        this.cfg = cfg;
+        this.stats = stats;
+        this.heatmaps = heatmaps;
+        this.partitions = partitions;
+        this.summoners = summoners;
+    }
+
+    /** Parmi les ids donnés, ceux déjà présents dans lol.match (une seule requête). */
+    public Set<String> existing(List<String> matchIds) {
+        if (matchIds.isEmpty()) return Set.of();
+        return new HashSet<>(jdbc.query("SELECT match_id FROM lol.match WHERE match_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", matchIds.toArray())),
+                (rs, i) -> rs.getString(1)));
+    }
+
+    public void save(MatchRows rows) {
+        var strategy = cfg.getIngest().getWriteStrategy();
+        long created = rows.gameCreationMs();
+        partitions.ensure(created);
+        List<String> written = inTx(() -> {
+            jdbc.update(UPSERT_MATCH, ps -> BulkWriter.bind(ps, rows.match));
+            List<String> puuids = summoners.upsert(rows.participants); // FK participant → summoner
+            // clé de partition dans le WHERE : la suppression ne visite qu'une partition
+            jdbc.update("DELETE FROM lol.timeline_event WHERE match_id = ? AND game_creation_ms = ?", rows.matchId, created);
+            jdbc.update("DELETE FROM lol.participant_frame WHERE match_id = ? AND game_creation_ms = ?", rows.matchId, created);
+            jdbc.update("DELETE FROM lol.participant_series WHERE match_id = ? AND game_creation_ms = ?", rows.matchId, created);
+            jdbc.update("DELETE FROM lol.team WHERE match_id = ?", rows.matchId);
+            jdbc.update("DELETE FROM lol.participant WHERE match_id = ?", rows.matchId);
+
+            writer.write(strategy, Table.TEAM, rows.teams);
+            writer.write(strategy, Table.PARTICIPANT, rows.participants);
+            writeTimeline(strategy, List.of(rows));
+            if (cfg.getIngest().isStoreTimeline() && rows.timelineRaw != null)
+                jdbc.update("""
+                    INSERT INTO lol.match_timeline(match_id, raw) VALUES (?, ?)
+                    ON CONFLICT (match_id) DO UPDATE SET raw = EXCLUDED.raw, fetched_at = now()
+                """, rows.matchId, rows.timelineRaw);
+            if (stats.apply(rows.matchId, created, !rows.frames.isEmpty() || !rows.events.isEmpty())) heatmaps.add(rows);
+            return puuids;
+        });
+        summoners.remember(written);
+    }
+
+    /**
+     * Reprocess : remplace les lignes filles d'un lot de matchs reparsés depuis le brut stocké,
+     * en une transaction et une écriture groupée par table. lol.match.raw et
+     * lol.match_timeline ne sont pas réécrits ; les agrégats (déjà appliqués) non plus.
+     * Chaque match doit avoir sa timeline : supprimer un participant supprime ses frames.
+     */
+    public void rebuild(List<MatchRows> batch) {
+        if (batch.isEmpty()) return;
+        var strategy = cfg.getIngest().getWriteStrategy();
+        batch.stream().mapToLong(MatchRows::gameCreationMs).distinct().forEach(partitions::ensure);
+        String[] ids = batch.stream().map(r -> r.matchId).toArray(String[]::new);
+        Long[] created = batch.stream().map(MatchRows::gameCreationMs).distinct().toArray(Long[]::new);
+        List<Object[]> teams = new ArrayList<>(), participants = new ArrayList<>();
+        for (MatchRows r : batch) { teams.addAll(r.teams); participants.addAll(r.participants); }
+
+        List<String> written = inTx(() -> {
+            jdbc.batchUpdate(UPDATE_MATCH, batch, batch.size(), (ps, r) -> {
+                Object[] m = Arrays.copyOfRange(r.match, 1, MATCH_RAW + 1);
+                m[MATCH_RAW - 1] = r.matchId;
+                BulkWriter.bind(ps, m);
+            });
+            // clés de partition du lot dans le WHERE : seules leurs partitions sont visitées
+            for (String table : List.of("timeline_event", "participant_frame", "participant_series"))
+                jdbc.update("DELETE FROM lol." + table + " WHERE match_id = ANY(?) AND game_creation_ms = ANY(?)", ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("text", ids));
+                    ps.setArray(2, ps.getConnection().createArrayOf("int8", created));
+                });
+            // participant en dernier : la cascade vers frames / series n'a plus rien à faire
+            for (String table : List.of("team", "participant"))
+                jdbc.update("DELETE FROM lol." + table + " WHERE match_id = ANY(?)",
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", ids)));
+            List<String> puuids = summoners.upsert(participants);
+            writer.write(strategy, Table.TEAM, teams);
+            writer.write(strategy, Table.PARTICIPANT, participants);
+            writeTimeline(strategy, batch);
+            return puuids;
+        });
+        summoners.remember(written);
+    }
+
+    /**
+     * Transaction rejouée si PostgreSQL l'a choisie comme victime d'un interblocage (40P01) :
+     * les agrégats partagés sont verrouillés dans l'ordre, mais pas les index ni les FK.
+     */
+    private <T> T inTx(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= DEADLOCK_RETRIES || !isDeadlock(e)) throw e;
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static boolean isDeadlock(Throwable e) {
+        for (; e != null; e = e.getCause())
+            if (e instanceof SQLException s && "40P01".equals(s.getSQLState())) return true;
+        return false;
+    }
+
+    private void writeTimeline(BulkWriter.WriteStrategy strategy, List<MatchRows> matches) {
+        boolean packed = cfg.getIngest().getFrameStorage() == FrameSeries.Storage.PACKED;
+        List<Object[]> frames = new ArrayList<>(), events = new ArrayList<>();
+        for (MatchRows r : matches) {
+            frames.addAll(packed ? FrameSeries.pack(r.matchId, r.gameCreationMs(), r.frames) : r.frames);
+            events.addAll(r.events);
+        }
+        writer.write(strategy, packed ? Table.PARTICIPANT_SERIES : Table.PARTICIPANT_FRAME, frames);
+        writer.write(strategy, Table.TIMELINE_EVENT, events);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.apilol.db;
+
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Partitions mensuelles de timeline_event / participant_frame (V7) et participant_series (V8), bornées sur
+ * game_creation_ms en UTC et nommées {@code <table>_YYYY_MM}.
+ * {@link #ensure} est appelé avant chaque écriture de match, hors transaction : le DDL
+ * ne doit pas attendre derrière les inserts de la transaction qui le demande.
+ */
+@Component
+public class PartitionManager {
+    static final List<String> TABLES = List.of("timeline_event", "participant_frame", "participant_series");
+
+    private final JdbcTemplate jdbc;
+    private final Set<YearMonth> known = ConcurrentHashMap.newKeySet();
+
+    public PartitionManager(Db db) { this.jdbc = db.jdbc(); }
+
+    public static YearMonth monthOf(long gameCreationMs) {
+        return YearMonth.from(Instant.ofEpochMilli(gameCreationMs).atZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * Crée si besoin les partitions du mois de {@code gameCreationMs}. Une table
+     * {@code <table>_YYYY_MM} détachée (archivage interrompu) est rattachée : IF NOT EXISTS
+     * seul la laisserait hors de la table mère et chaque insert du mois échouerait.
+     */
+    public void ensure(long gameCreationMs) {
+        YearMonth m = monthOf(gameCreationMs);
+        if (known.contains(m)) return;
+        synchronized (this) {
+            if (known.contains(m)) return;
+            long from = m.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            long to = m.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            for (String t : TABLES) {
+                String part = partition(t, m);
+                jdbc.execute("CREATE TABLE IF NOT EXISTS lol.%s PARTITION OF lol.%s FOR VALUES FROM (%d) TO (%d)"
+                        .formatted(part, t, from, to));
+                if (attached(part)) continue;
+                try {
+                    jdbc.execute("ALTER TABLE lol.%s ATTACH PARTITION lol.%s FOR VALUES FROM (%d) TO (%d)"
+                            .formatted(t, part, from, to));
+                } catch (DataAccessException e) {
+                    if (!attached(part)) throw e; // sinon : rattachée entre-temps par une autre instance
+                }
+            }
+            known.add(m);
+        }
+    }
+
+    private boolean attached(String part) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("""
+            SELECT EXISTS (SELECT 1 FROM pg_inherits i
+                                    JOIN pg_class c ON c.oid = i.inhrelid
+                                    JOIN pg_namespace n ON n.oid = c.relnamespace
+                           WHERE n.nspname = 'lol' AND c.relname = ?)
+        """, Boolean.class, part));
+    }
+
+    /** Mois ayant des partitions attachées, du plus ancien au plus récent. */
+    public List<YearMonth> months() {
+        return jdbc.query("""
+            SELECT DISTINCT substring(c.relname from '(\\d{4}_\\d{2})$')
+            FROM pg_inherits i
+                     JOIN pg_class c ON c.oid = i.inhrelid
+                     JOIN pg_class p ON p.oid = i.inhparent
+                     JOIN pg_namespace n ON n.oid = p.relnamespace
+            WHERE n.nspname = 'lol' AND p.relname = 'timeline_event'
+            ORDER BY 1
+        """, (rs, i) -> YearMonth.parse(rs.getString(1).replace('_', '-')));
+    }
+
+    /** Détache les partitions du mois : elles restent en base comme tables ordinaires. */
+    public void detach(YearMonth m) {
+        for (String t : TABLES)
+            jdbc.execute("ALTER TABLE lol.%s DETACH PARTITION lol.%s".formatted(t, partition(t, m)));
+        known.remove(m);
+    }
+
+    /**
+     * Exporte en CSV gzip ({@code dir/<partition>.csv.gz}) les partitions du mois, encore
+     * attachées, puis les détache et les supprime — seulement une fois tous les COPY réussis :
+     * un échec laisse le mois visible et il sera réessayé au prochain démarrage.
+     * @return les fichiers écrits
+     */
+    public List<Path> archive(YearMonth m, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (String t : TABLES) {
+            String part = partition(t, m);
+            Path file = dir.resolve(part + ".csv.gz");
+            Path tmp = dir.resolve(part + ".csv.gz.tmp");
+            jdbc.execute((ConnectionCallback<Long>) con -> {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                    return con.unwrap(PGConnection.class).getCopyAPI()
+                            .copyOut("COPY lol." + part + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+                } catch (IOException e) {
+                    throw new SQLException("archivage de " + part + " échoué", e);
+                }
+            });
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            files.add(file);
+        }
+        detach(m);
+        for (String t : TABLES) jdbc.execute("DROP TABLE lol." + partition(t, m));
+        return files;
+    }
+
+    static String partition(String table, YearMonth m) {
+        return "%s_%04d_%02d".formatted(table, m.getYear(), m.getMonthValue());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.apilol.db;
+
+import com.example.apilol.db.FrameSeries.Series;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture des séries par participant d'un match, quel que soit le stockage : une ligne
+ * de lol.participant_series par participant, sinon repli sur les lignes de participant_frame.
+ */
+@Component
+public class SeriesStore {
+    private final JdbcTemplate jdbc;
+    public SeriesStore(Db db) { this.jdbc = db.jdbc(); }
+
+    public List<Series> find(String matchId) {
+        List<Series> packed = jdbc.query("""
+            SELECT participant_id, ts_ms, total_gold, current_gold, xp, level, minions_killed,
+                   jungle_minions_killed, position_x, position_y, damage
+            FROM lol.participant_series WHERE match_id = ? ORDER BY participant_id
+        """, (rs, i) -> FrameSeries.decode(matchId, rs.getInt(1), ints(rs, 2), ints(rs, 3), ints(rs, 4),
+                ints(rs, 5), ints(rs, 6), ints(rs, 7), ints(rs, 8), ints(rs, 9), ints(rs, 10), ints(rs, 11)), matchId);
+        if (!packed.isEmpty()) return packed;
+
+        List<Object[]> frames = jdbc.query("""
+            SELECT match_id, frame_index, ts_ms, participant_id, total_gold, current_gold, xp, level,
+                   minions_killed, jungle_minions_killed, position_x, position_y, damage_stats
+            FROM lol.participant_frame WHERE match_id = ?
+        """, (rs, i) -> {
+            Object[] r = new Object[13];
+            for (int c = 0; c < r.length; c++) r[c] = rs.getObject(c + 1);
+            return r;
+        }, matchId);
+        List<Series> out = new ArrayList<>();
+        for (Object[] row : FrameSeries.pack(matchId, 0L, frames))
+            out.add(FrameSeries.decode(matchId, (Integer) row[1], (int[]) row[3], (int[]) row[4], (int[]) row[5],
+                    (int[]) row[6], (int[]) row[7], (int[]) row[8], (int[]) row[9], (int[]) row[10], (int[]) row[11],
+                    (int[]) row[12]));
+        return out;
+    }
+
+    private static int[] ints(ResultSet rs, int col) throws SQLException {
+        Array a = rs.getArray(col);
+        if (a == null) return new int[0];
+        Integer[] boxed = (Integer[]) a.getArray();
+        int[] out = new int[boxed.length];
+        for (int i = 0; i < boxed.length; i++) out[i] = boxed[i] == null ? 0 : boxed[i];
+        return out;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.apilol.db;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Agrégats de lecture (V5) : stats et courbes d'or par joueur et par champion/patch.
+ * {@link #apply} est appelé dans la transaction de {@link MatchStore#save} ; les lectures
+ * sont des accès par clé primaire, indépendants du volume de lol.participant.
+ * <p>
+ * Les lignes d'agrégat sont partagées par les matchs ingérés en parallèle : chaque upsert
+ * les verrouille dans l'ordre de leur clé ({@code ORDER BY})
+ * pour que deux transactions concurrentes ne s'interbloquent pas.
+ */
+@Component
+public class StatsStore {
+    /** Ligne d'agrégat par file ; winrate et kda dérivés. */
+    public record Line(int queueId, int games, int wins, long kills, long deaths, long assists,
+                       double winrate, double kda) {
+        static Line of(int queueId, int games, int wins, long kills, long deaths, long assists) {
+            return new Line(queueId, games, wins, kills, deaths, assists,
+                    games == 0 ? 0 : (double) wins / games,
+                    (double) (kills + assists) / Math.max(1, deaths));
+        }
+    }
+
+    /** Or total moyen par frame (index = frame_index), par file. */
+    public record GoldCurve(int queueId, double[] avgGold) {}
+
+    private static final String GUARD =
+            "INSERT INTO lol.match_aggregated(match_id) VALUES (?) ON CONFLICT DO NOTHING";
+    private static final String TIMELINE_GUARD = """
+        UPDATE lol.match_aggregated SET timeline_aggregated = true
+        WHERE match_id = ? AND NOT timeline_aggregated
+    """;
+
+    // GROUP BY : un puuid peut apparaître deux fois dans un match (bots en co-op, tous "BOT") ;
+    // ON CONFLICT refuse de mettre à jour deux fois la même ligne. Les bots ne sont pas agrégés.
+    private static final String PLAYER = """
+        INSERT INTO lol.player_stats AS s
+        SELECT p.puuid, COALESCE(m.queue_id, 0), count(*), count(*) FILTER (WHERE p.win),
+               COALESCE(sum(p.kills), 0), COALESCE(sum(p.deaths), 0), COALESCE(sum(p.assists), 0)
+        FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id
+        WHERE p.match_id = ? AND p.puuid IS NOT NULL AND p.puuid <> 'BOT'
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        ON CONFLICT (puuid, queue_id) DO UPDATE SET
+          games = s.games + EXCLUDED.games, wins = s.wins + EXCLUDED.wins, kills = s.kills + EXCLUDED.kills,
+          deaths = s.deaths + EXCLUDED.deaths, assists = s.assists + EXCLUDED.assists
+    """;
+
+    // GROUP BY : un même champion peut apparaître deux fois (modes "one for all")
+    private static final String CHAMPION = """
+        INSERT INTO lol.champion_patch_stats AS s
+        SELECT p.champion_id, COALESCE(m.patch, ''), COALESCE(m.queue_id, 0), count(*), count(*) FILTER (WHERE p.win),
+               COALESCE(sum(p.kills), 0), COALESCE(sum(p.deaths), 0), COALESCE(sum(p.assists), 0)
+        FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id
+        WHERE p.match_id = ? AND p.champion_id IS NOT NULL
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        ON CONFLICT (champion_id, patch, queue_id) DO UPDATE SET
+          games = s.games + EXCLUDED.games, wins = s.wins + EXCLUDED.wins, kills = s.kills + EXCLUDED.kills,
+          deaths = s.deaths + EXCLUDED.deaths, assists = s.assists + EXCLUDED.assists
+    """;
+
+    // %s : lol.participant_frame ou lol.v_series_frames selon le stockage des frames ; groupé comme PLAYER
+    private static final String PLAYER_GOLD = """
+        INSERT INTO lol.player_gold_curve AS c
+        SELECT p.puuid, COALESCE(m.queue_id, 0), f.frame_index, count(*), sum(f.total_gold)
+        FROM %s f
+                 JOIN lol.participant p ON p.match_id = f.match_id AND p.participant_id = f.participant_id
+                 JOIN lol.match m ON m.match_id = f.match_id
+        WHERE f.match_id = ? AND f.game_creation_ms = ? AND p.puuid IS NOT NULL AND p.puuid <> 'BOT'
+          AND f.total_gold IS NOT NULL
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        ON CONFLICT (puuid, queue_id, frame_index) DO UPDATE SET
+          samples = c.samples + EXCLUDED.samples, gold_sum = c.gold_sum + EXCLUDED.gold_sum
+    """;
+
+    private static final String CHAMPION_GOLD = """
+        INSERT INTO lol.champion_gold_curve AS c
+        SELECT p.champion_id, COALESCE(m.patch, ''), COALESCE(m.queue_id, 0), f.frame_index, count(*), sum(f.total_gold)
+        FROM %s f
+                 JOIN lol.participant p ON p.match_id = f.match_id AND p.participant_id = f.participant_id
+                 JOIN lol.match m ON m.match_id = f.match_id
+        WHERE f.match_id = ? AND f.game_creation_ms = ? AND p.champion_id IS NOT NULL AND f.total_gold IS NOT NULL
+        GROUP BY 1, 2, 3, 4
+        ORDER BY 1, 2, 3, 4
+        ON CONFLICT (champion_id, patch, queue_id, frame_index) DO UPDATE SET
+          samples = c.samples + EXCLUDED.samples, gold_sum = c.gold_sum + EXCLUDED.gold_sum
+    """;
+
+    private final JdbcTemplate jdbc;
+    public StatsStore(Db db) { this.jdbc = db.jdbc(); }
+
+    /**
+     * Ajoute un match (déjà écrit dans la transaction courante) aux agrégats. Stats de fin de
+     * partie et partie timeline sont gardées séparément : chacune n'est comptée qu'une fois.
+     * @param gameCreationMs clé de partition des frames du match
+     * @param hasTimeline    frames / events écrits avec le match
+     * @return true si la partie timeline vient d'être agrégée (heatmaps à ajouter)
+     */
+    public boolean apply(String matchId, long gameCreationMs, boolean hasTimeline) {
+        if (jdbc.update(GUARD, matchId) == 1) {
+            jdbc.update(PLAYER, matchId);
+            jdbc.update(CHAMPION, matchId);
+        }
+        if (!hasTimeline || jdbc.update(TIMELINE_GUARD, matchId) == 0) return false;
+        // une seule des deux sources contient le match : l'autre requête ne trouve rien
+        for (String frames : List.of("lol.participant_frame", "lol.v_series_frames")) {
+            jdbc.update(PLAYER_GOLD.formatted(frames), matchId, gameCreationMs);
+            jdbc.update(CHAMPION_GOLD.formatted(frames), matchId, gameCreationMs);
+        }
+        return true;
+    }
+
+    public List<Line> player(String puuid) {
+        return jdbc.query("""
+            SELECT queue_id, games, wins, kills, deaths, assists FROM lol.player_stats
+            WHERE puuid = ? ORDER BY queue_id
+        """, (rs, i) -> Line.of(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)),
+                puuid);
+    }
+
+    public List<Line> champion(int championId, String patch) {
+        return jdbc.query("""
+            SELECT queue_id, games, wins, kills, deaths, assists FROM lol.champion_patch_stats
+            WHERE champion_id = ? AND patch = ? ORDER BY queue_id
+        """, (rs, i) -> Line.of(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)),
+                championId, patch);
+    }
+
+    public List<GoldCurve> playerGold(String puuid) {
+        return curves("""
+            SELECT queue_id, frame_index, gold_sum::float8 / samples FROM lol.player_gold_curve
+            WHERE puuid = ? ORDER BY queue_id, frame_index
+        """, puuid);
+    }
+
+    public List<GoldCurve> championGold(int championId, String patch) {
+        return curves("""
+            SELECT queue_id, frame_index, gold_sum::float8 / samples FROM lol.champion_gold_curve
+            WHERE champion_id = ? AND patch = ? ORDER BY queue_id, frame_index
+        """, championId, patch);
+    }
+
+    private List<GoldCurve> curves(String sql, Object... args) {
+        Map<Integer, List<double[]>> byQueue = new TreeMap<>();
+        jdbc.query(sql, rs -> {
+            byQueue.computeIfAbsent(rs.getInt(1), q -> new ArrayList<>())
+                    .add(new double[]{rs.getInt(2), rs.getDouble(3)});
+        }, args);
+        List<GoldCurve> out = new ArrayList<>(byQueue.size());
+        byQueue.forEach((q, points) -> {
+            double[] avg = new double[(int) points.get(points.size() - 1)[0] + 1];
+            for (double[] p : points) avg[(int) p[0]] = p[1];
+            out.add(new GoldCurve(q, avg));
+        });
+        return out;
+    }
+}
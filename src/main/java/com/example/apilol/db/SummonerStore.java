@@ -0,0 +1,73 @@
+package com.example.apilol.db;
+
+import com.example.apilol.config.AppProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Lignes lol.summoner des participants (cible de la FK lol.participant.puuid), écrites
+ * depuis le payload du match. Un LRU borné des puuids déjà en base évite de réécrire les
+ * joueurs croisés récemment : au plus un INSERT multi-lignes par match, le plus souvent aucun.
+ */
+@Component
+public class SummonerStore {
+    /** colonnes de {@link Table#PARTICIPANT} */
+    private static final int PUUID = 2, GAME_NAME = 6, TAG_LINE = 7;
+
+    private final JdbcTemplate jdbc;
+    private final Map<String, Boolean> known;
+
+    public SummonerStore(Db db, AppProperties cfg) {
+        this.jdbc = db.jdbc();
+        int max = cfg.getIngest().getSummonerCacheSize();
+        this.known = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) { return size() > max; }
+        };
+    }
+
+    /**
+     * Upsert des participants absents du LRU, à appeler dans la transaction du match.
+     * @return les puuids écrits, à passer à {@link #remember} une fois la transaction validée
+     */
+    public List<String> upsert(List<Object[]> participants) {
+        // trié : deux matchs concurrents verrouillent leurs joueurs communs dans le même ordre
+        TreeMap<String, Object[]> missing = new TreeMap<>();
+        synchronized (known) {
+            for (Object[] r : participants)
+                if (r[PUUID] instanceof String puuid && known.get(puuid) == null) missing.putIfAbsent(puuid, r);
+        }
+        if (missing.isEmpty()) return List.of();
+        int n = missing.size();
+        String[] puuids = new String[n], names = new String[n], tags = new String[n];
+        int i = 0;
+        for (Object[] r : missing.values()) {
+            puuids[i] = (String) r[PUUID];
+            names[i] = (String) r[GAME_NAME];
+            tags[i++] = (String) r[TAG_LINE];
+        }
+        jdbc.update("""
+            INSERT INTO lol.summoner(puuid, game_name, tag_line, last_seen_at)
+            SELECT u.puuid, u.game_name, u.tag_line, now()
+            FROM unnest(?::text[], ?::text[], ?::text[]) AS u(puuid, game_name, tag_line)
+            ON CONFLICT (puuid) DO UPDATE SET
+              game_name    = COALESCE(EXCLUDED.game_name, lol.summoner.game_name),
+              tag_line     = COALESCE(EXCLUDED.tag_line, lol.summoner.tag_line),
+              last_seen_at = now()
+        """, ps -> {
+            var c = ps.getConnection();
+            ps.setArray(1, c.createArrayOf("text", puuids));
+            ps.setArray(2, c.createArrayOf("text", names));
+            ps.setArray(3, c.createArrayOf("text", tags));
+        });
+        return List.of(puuids);
+    }
+
+    public void remember(Collection<String> puuids) {
+        if (puuids.isEmpty()) return;
+        synchronized (known) {
+            for (String p : puuids) known.put(p, Boolean.TRUE);
+        }
+    }
+}
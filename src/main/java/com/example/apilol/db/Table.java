@@ -0,0 +1,49 @@
+package com.example.apilol.db;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Description minimale d'une table cible pour les écritures en masse. */
+public record Table(String name, List<String> columns) {
+
+    public static final Table TEAM = new Table("lol.team", List.of(
+            "match_id", "team_id", "win", "baron_kills", "dragon_kills", "rift_herald_kills",
+            "inhibitor_kills", "tower_kills", "ban0", "ban1", "ban2", "ban3", "ban4"));
+
+    public static final Table PARTICIPANT = new Table("lol.participant", List.of(
+            "match_id", "participant_id", "puuid", "team_id", "champion_id", "champion_name",
+            "riot_id_game_name", "riot_id_tagline", "individual_position", "lane", "role",
+            "summoner1_id", "summoner2_id", "item0", "item1", "item2", "item3", "item4", "item5", "item6",
+            "kills", "deaths", "assists", "total_damage_to_champs", "total_damage_taken",
+            "damage_self_mitigated", "gold_earned", "vision_score", "wards_placed", "wards_killed",
+            "detector_wards_placed", "champ_level", "total_minions_killed", "neutral_minions_killed",
+            "time_ccing_others", "win", "perks", "stats"));
+
+    public static final Table PARTICIPANT_FRAME = new Table("lol.participant_frame", List.of(
+            "match_id", "frame_index", "ts_ms", "participant_id", "total_gold", "current_gold",
+            "xp", "level", "minions_killed", "jungle_minions_killed", "position_x", "position_y", "damage_stats",
+            "game_creation_ms"));
+
+    public static final Table TIMELINE_EVENT = new Table("lol.timeline_event", List.of(
+            "match_id", "ts_ms", "event_type", "participant_id", "killer_id", "victim_id",
+            "team_id", "assisting_ids", "position_x", "position_y", "item_id", "after_id", "before_id",
+            "skill_slot", "level_up_type", "ward_type", "building_type", "tower_type",
+            "monster_type", "monster_sub_type", "bounty", "gold_gain", "other", "game_creation_ms"));
+
+    /** format packé de {@link FrameSeries} : une ligne par (match, participant) */
+    public static final Table PARTICIPANT_SERIES = new Table("lol.participant_series", List.of(
+            "match_id", "participant_id", "frame_count", "ts_ms", "total_gold", "current_gold", "xp", "level",
+            "minions_killed", "jungle_minions_killed", "position_x", "position_y", "damage", "game_creation_ms"));
+
+    public static final Table INGESTION_LOG = new Table("lol.ingestion_log", List.of(
+            "source", "method", "url", "http_status", "retry_after_seconds", "note"));
+
+    public String insertSql() {
+        return "INSERT INTO " + name + "(" + String.join(", ", columns) + ") VALUES ("
+                + String.join(",", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    public String copySql() {
+        return "COPY " + name + "(" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+}
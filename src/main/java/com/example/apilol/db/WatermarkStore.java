@@ -0,0 +1,43 @@
+package com.example.apilol.db;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Watermark d'ingestion par puuid (lol.ingest_watermark). */
+@Component
+public class WatermarkStore {
+    public record Watermark(String newestMatchId, Long newestStartS) {}
+
+    private final JdbcTemplate jdbc;
+    public WatermarkStore(Db db) { this.jdbc = db.jdbc(); }
+
+    public Watermark find(String puuid) {
+        List<Watermark> l = jdbc.query(
+                "SELECT newest_match_id, newest_start_s FROM lol.ingest_watermark WHERE puuid = ?",
+                (rs, i) -> new Watermark(rs.getString(1), rs.getObject(2, Long.class)), puuid);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    /** Avance le watermark jusqu'au plus récent des matchs donnés présents en base ; ne recule jamais. */
+    public void advance(String puuid, List<String> matchIds) {
+        if (matchIds.isEmpty()) return;
+        jdbc.update("""
+            INSERT INTO lol.ingest_watermark(puuid, newest_match_id, newest_start_s, updated_at)
+            SELECT ?, m.match_id, COALESCE(m.game_start_ms, m.game_creation_ms) / 1000, now()
+            FROM lol.match m
+            WHERE m.match_id = ANY(?)
+            ORDER BY COALESCE(m.game_start_ms, m.game_creation_ms) DESC NULLS LAST
+            LIMIT 1
+            ON CONFLICT (puuid) DO UPDATE SET
+              newest_match_id = CASE WHEN EXCLUDED.newest_start_s >= COALESCE(lol.ingest_watermark.newest_start_s, 0)
+                                     THEN EXCLUDED.newest_match_id ELSE lol.ingest_watermark.newest_match_id END,
+              newest_start_s  = GREATEST(lol.ingest_watermark.newest_start_s, EXCLUDED.newest_start_s),
+              updated_at      = now()
+        """, ps -> {
+            ps.setString(1, puuid);
+            ps.setArray(2, ps.getConnection().createArrayOf("text", matchIds.toArray()));
+        });
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.apilol.riot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limiteur proactif piloté par les en-têtes Riot.
+ * <p>
+ * Un bucket "app" + un bucket par méthode (account, match-ids, match, timeline), chacun
+ * composé d'une fenêtre fixe par couple {@code limite:secondes} annoncé par
+ * {@code X-App-Rate-Limit} / {@code X-Method-Rate-Limit}. Les compteurs sont recalés sur
+ * les en-têtes {@code *-Count} après chaque réponse. Partagé par tous les threads appelants.
+ * <p>
+ * Chaque attente est imputée au bucket limitant dans le timer {@code riot.ratelimit.wait}
+ * (tags {@code router}, {@code bucket}) : visible sur /actuator/prometheus pendant le crawl.
+ */
+public class RateLimiter {
+    public static final String APP = "app";
+
+    /** Marge ajoutée à chaque fenêtre : notre horloge démarre avant celle du serveur (latence réseau). */
+    private static final long WINDOW_PAD_NANOS = Duration.ofMillis(250).toNanos();
+    /** Tant qu'un bucket n'a jamais vu d'en-têtes, une seule requête "sonde" à la fois. */
+    private static final long PROBE_NANOS = Duration.ofSeconds(5).toNanos();
+    private static final long PROBE_POLL_NANOS = Duration.ofMillis(50).toNanos();
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final String router;
+    private final MeterRegistry meters;
+
+    public RateLimiter(String router, MeterRegistry meters) {
+        this.router = router;
+        this.meters = meters;
+    }
+
+    /**
+     * Réserve un jeton dans le bucket app ET dans celui de la méthode, de façon atomique.
+     * @return 0 si la requête peut partir, sinon le nombre de nanosecondes à attendre avant de réessayer
+     */
+    public long tryAcquire(String method) {
+        Bucket app = bucket(APP), m = bucket(method);
+        synchronized (this) {
+            long now = System.nanoTime();
+            long wait = Math.max(app.waitNanos(now), m.waitNanos(now));
+            if (wait > 0) return wait;
+            app.reserve(now);
+            m.reserve(now);
+            return 0;
+        }
+    }
+
+    /** Version bloquante de {@link #tryAcquire(String)} ; le temps passé est imputé au bucket limitant. */
+    public void acquire(String method) throws InterruptedException {
+        for (;;) {
+            long wait = tryAcquire(method);
+            if (wait == 0) return;
+            recordWait(method, wait);
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    /** Impute une attente au bucket qui la provoque (app ou méthode). */
+    public void recordWait(String method, long nanos) {
+        long now = System.nanoTime();
+        Bucket app = bucket(APP), m = bucket(method);
+        Bucket culprit;
+        synchronized (this) { culprit = app.waitNanos(now) >= m.waitNanos(now) ? app : m; }
+        culprit.waits.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Recale les fenêtres à partir des en-têtes d'une réponse (n'importe quel statut). */
+    public void update(String method, String appLimit, String appCount, String methodLimit, String methodCount) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            bucket(APP).update(parse(appLimit), parse(appCount), now);
+            bucket(method).update(parse(methodLimit), parse(methodCount), now);
+        }
+    }
+
+    /**
+     * 429 malgré tout (clé partagée, limite "service"…) : on bloque le bucket fautif
+     * pendant Retry-After plutôt que d'endormir l'appelant.
+     * @param limitType valeur de {@code X-Rate-Limit-Type} (application | method | service), peut être null
+     */
+    public void penalize(String method, String limitType, long retryAfterSeconds) {
+        long until = System.nanoTime() + Duration.ofSeconds(Math.max(1, retryAfterSeconds)).toNanos();
+        synchronized (this) {
+            Bucket b = "application".equals(limitType) ? bucket(APP) : bucket(method);
+            b.blockedUntil = Math.max(b.blockedUntil, until);
+        }
+    }
+
+    /** Temps total passé à attendre, par bucket. */
+    public Map<String, Duration> waitTimes() {
+        Map<String, Duration> out = new TreeMap<>();
+        buckets.forEach((k, b) -> out.put(k, Duration.ofNanos((long) b.waits.totalTime(TimeUnit.NANOSECONDS))));
+        return out;
+    }
+
+    /** Nombre d'attentes, par bucket. */
+    public Map<String, Long> waitCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        buckets.forEach((k, b) -> out.put(k, b.waits.count()));
+        return out;
+    }
+
+    private Bucket bucket(String name) {
+        return buckets.computeIfAbsent(name, k -> new Bucket(
+                Timer.builder("riot.ratelimit.wait").tag("router", router).tag("bucket", k).register(meters)));
+    }
+
+    /** "20:1,100:120" → {1s → 20, 120s → 100} */
+    static Map<Long, Integer> parse(String header) {
+        if (header == null || header.isBlank()) return Map.of();
+        Map<Long, Integer> out = new HashMap<>();
+        for (String part : header.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) continue;
+            try {
+                out.put(Long.parseLong(kv[1].trim()), Integer.parseInt(kv[0].trim()));
+            } catch (NumberFormatException ignored) {}
+        }
+        return out;
+    }
+
+    private static final class Bucket {
+        /** fenêtre (s) → état ; accès sous le verrou du RateLimiter */
+        final Map<Long, Window> windows = new HashMap<>();
+        long blockedUntil;
+        long probeSince;
+        final Timer waits;
+
+        Bucket(Timer waits) { this.waits = waits; }
+
+        long waitNanos(long now) {
+            long wait = Math.max(0, blockedUntil - now);
+            if (windows.isEmpty() && probeSince != 0 && now - probeSince < PROBE_NANOS)
+                wait = Math.max(wait, PROBE_POLL_NANOS);
+            for (Window w : windows.values()) wait = Math.max(wait, w.waitNanos(now));
+            return wait;
+        }
+
+        void reserve(long now) {
+            if (windows.isEmpty()) probeSince = now;
+            for (Window w : windows.values()) w.reserve(now);
+        }
+
+        void update(Map<Long, Integer> limits, Map<Long, Integer> counts, long now) {
+            limits.forEach((secs, limit) -> windows.computeIfAbsent(secs, Window::new).limit = limit);
+            probeSince = 0;
+            counts.forEach((secs, count) -> {
+                Window w = windows.get(secs);
+                if (w == null) return;
+                if (w.start == 0 || w.expired(now)) { w.start = now; w.count = 0; }
+                // le serveur voit aussi les requêtes d'autres process : on prend le max
+                w.count = Math.max(w.count, count);
+            });
+        }
+    }
+
+    private static final class Window {
+        final long lengthNanos;
+        int limit = Integer.MAX_VALUE;
+        int count;
+        long start;
+
+        Window(long seconds) { this.lengthNanos = Duration.ofSeconds(seconds).toNanos() + WINDOW_PAD_NANOS; }
+
+        boolean expired(long now) { return now - start >= lengthNanos; }
+
+        long waitNanos(long now) {
+            if (start == 0 || expired(now) || count < limit) return 0;
+            return start + lengthNanos - now;
+        }
+
+        void reserve(long now) {
+            if (start == 0 || expired(now)) { start = now; count = 0; }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.apilol.riot;
+
+import java.util.Locale;
+import java.util.Map;
+
+/** Plateforme (préfixe des match ids, ex: EUW1) → routeur régional Match-V5. */
+public final class Region {
+    private static final Map<String, String> ROUTER_BY_PLATFORM = Map.ofEntries(
+            Map.entry("EUW1", "europe"), Map.entry("EUN1", "europe"), Map.entry("TR1", "europe"),
+            Map.entry("RU", "europe"), Map.entry("ME1", "europe"),
+            Map.entry("NA1", "americas"), Map.entry("BR1", "americas"),
+            Map.entry("LA1", "americas"), Map.entry("LA2", "americas"),
+            Map.entry("KR", "asia"), Map.entry("JP1", "asia"),
+            Map.entry("OC1", "sea"), Map.entry("PH2", "sea"), Map.entry("SG2", "sea"),
+            Map.entry("TH2", "sea"), Map.entry("TW2", "sea"), Map.entry("VN2", "sea"));
+
+    private Region() {}
+
+    /** @param platform "EUW1", "euw1"… ; inconnu → {@code fallback} */
+    public static String ofPlatform(String platform, String fallback) {
+        if (platform == null) return fallback;
+        return ROUTER_BY_PLATFORM.getOrDefault(platform.toUpperCase(Locale.ROOT), fallback);
+    }
+
+    /** "EUW1_6801234567" → "europe" */
+    public static String ofMatch(String matchId, String fallback) {
+        if (matchId == null) return fallback;
+        int i = matchId.indexOf('_');
+        return i > 0 ? ofPlatform(matchId.substring(0, i), fallback) : fallback;
+    }
+
+    /** Account-V1 n'existe que sur americas / asia / europe. */
+    public static String forAccount(String router) {
+        return "sea".equals(router) ? "asia" : router;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.apilol.riot;
+
+import com.example.apilol.config.AppProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cache disque des corps de réponse immuables (match, timeline), clé = {@code endpoint:matchId}.
+ * <p>
+ * Stockage : segments {@code seg-NNNNNN.bin} en ajout seul (corps compressés deflate + CRC32)
+ * et un fichier {@code index.bin} qui liste clé → (segment, offset, tailles). Les entrées ne
+ * expirent jamais : un match terminé ne change plus. L'index est rechargé au démarrage ; une
+ * entrée qui déborde de son segment (arrêt brutal) est ignorée.
+ */
+@Component
+public class ResponseCache {
+    private static final int RECORD_MAGIC = 0x4C4F4C31; // "LOL1"
+
+    private record Entry(int segment, long offset, int compressedLen, int rawLen, int crc) {}
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long segmentBytes;
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readers = new ConcurrentHashMap<>();
+
+    // écriture : un seul appender à la fois
+    private FileChannel writer;
+    private DataOutputStream indexOut;
+    private int segment;
+
+    public ResponseCache(AppProperties props) throws IOException {
+        var c = props.getCache();
+        this.enabled = c.isEnabled() || props.getRiot().isReplay();
+        this.dir = Path.of(c.getDir());
+        this.segmentBytes = c.getSegmentBytes();
+        if (enabled) open();
+    }
+
+    public boolean enabled() { return enabled; }
+
+    public static String key(String endpoint, String id) { return endpoint + ":" + id; }
+
+    /** @return le corps décompressé, ou null s'il n'est pas en cache */
+    public byte[] get(String key) throws IOException {
+        if (!enabled) return null;
+        Entry e = index.get(key);
+        if (e == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(e.compressedLen());
+        FileChannel ch = reader(e.segment());
+        long pos = e.offset();
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new EOFException("segment " + e.segment() + " tronqué");
+            pos += n;
+        }
+        byte[] raw = new byte[e.rawLen()];
+        Inflater inf = new Inflater();
+        try {
+            inf.setInput(buf.array());
+            int off = 0;
+            while (off < raw.length && !inf.finished()) off += inf.inflate(raw, off, raw.length - off);
+        } catch (DataFormatException ex) {
+            throw new IOException("cache corrompu pour " + key, ex);
+        } finally {
+            inf.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != e.crc()) throw new IOException("CRC invalide pour " + key);
+        return raw;
+    }
+
+    public void put(String key, byte[] body) throws IOException {
+        if (!enabled || body == null || index.containsKey(key)) return;
+        byte[] compressed = deflate(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+
+        synchronized (this) {
+            if (index.containsKey(key)) return;
+            if (writer.size() >= segmentBytes) roll();
+            // en-tête auto-descriptif (clé, tailles, CRC) : un segment reste exploitable sans index.bin
+            ByteBuffer head = ByteBuffer.allocate(4 + 2 + k.length + 4 + 4 + 4);
+            head.putInt(RECORD_MAGIC).putShort((short) k.length).put(k)
+                    .putInt(compressed.length).putInt(body.length).putInt((int) crc.getValue()).flip();
+            long start = writer.size();
+            writeFully(head, start);
+            long dataOffset = start + head.capacity();
+            writeFully(ByteBuffer.wrap(compressed), dataOffset);
+
+            Entry e = new Entry(segment, dataOffset, compressed.length, body.length, (int) crc.getValue());
+            writeIndex(key, e);
+            index.put(key, e);
+        }
+    }
+
+    /** Ids en cache pour un endpoint donné ("match", "timeline"). */
+    public List<String> ids(String endpoint) {
+        String prefix = endpoint + ":";
+        List<String> out = new ArrayList<>();
+        for (String k : index.keySet()) if (k.startsWith(prefix)) out.add(k.substring(prefix.length()));
+        Collections.sort(out);
+        return out;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (!enabled) return;
+        indexOut.flush();
+        indexOut.close();
+        writer.force(false);
+        writer.close();
+        for (FileChannel ch : readers.values()) ch.close();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        Path idx = dir.resolve("index.bin");
+        if (Files.exists(idx) && !loadIndex(idx)) rewriteIndex(idx);
+        segment = 0;
+        try (var s = Files.list(dir)) {
+            s.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("seg-") && n.endsWith(".bin"))
+                    .mapToInt(n -> Integer.parseInt(n.substring(4, n.length() - 4)))
+                    .max().ifPresent(m -> segment = m);
+        }
+        if (segment == 0) segment = 1;
+        writer = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        indexOut = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(idx, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    /** @return false si la fin de l'index était tronquée (à réécrire avant d'y ajouter) */
+    private boolean loadIndex(Path idx) throws IOException {
+        Map<Integer, Long> sizes = new HashMap<>();
+        long fileSize = Files.size(idx), consumed = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(idx)))) {
+            for (;;) {
+                String key;
+                Entry e;
+                try {
+                    key = in.readUTF();
+                    e = new Entry(in.readInt(), in.readLong(), in.readInt(), in.readInt(), in.readInt());
+                } catch (EOFException eof) {
+                    break; // dernière entrée éventuellement incomplète
+                }
+                consumed += 2 + key.getBytes(StandardCharsets.UTF_8).length + 28;
+                long size = sizes.computeIfAbsent(e.segment(), s -> {
+                    try { return Files.size(segmentPath(s)); } catch (IOException ex) { return -1L; }
+                });
+                if (e.offset() + e.compressedLen() <= size) index.put(key, e);
+            }
+        }
+        return consumed == fileSize;
+    }
+
+    private void rewriteIndex(Path idx) throws IOException {
+        Path tmp = dir.resolve("index.bin.tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            indexOut = out;
+            for (var e : index.entrySet()) writeIndex(e.getKey(), e.getValue());
+        }
+        Files.move(tmp, idx, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeIndex(String key, Entry e) throws IOException {
+        indexOut.writeUTF(key);
+        indexOut.writeInt(e.segment());
+        indexOut.writeLong(e.offset());
+        indexOut.writeInt(e.compressedLen());
+        indexOut.writeInt(e.rawLen());
+        indexOut.writeInt(e.crc());
+        indexOut.flush();
+    }
+
+    private void writeFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) pos += writer.write(buf, pos);
+    }
+
+    private void roll() throws IOException {
+        writer.force(false);
+        writer.close();
+        segment++;
+        writer = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+    private FileChannel reader(int seg) {
+        return readers.computeIfAbsent(seg, s -> {
+            try { return FileChannel.open(segmentPath(s), StandardOpenOption.READ); }
+            catch (IOException e) { throw new UncheckedIOException(e); }
+        });
+    }
+
+    private Path segmentPath(int seg) { return dir.resolve(String.format("seg-%06d.bin", seg)); }
+
+    private static byte[] deflate(byte[] body) {
+        Deflater def = new Deflater(Deflater.BEST_SPEED);
+        try {
+            def.setInput(body);
+            def.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 6));
+            byte[] buf = new byte[1 << 16];
+            while (!def.finished()) out.write(buf, 0, def.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            def.end();
+        }
+    }
+}
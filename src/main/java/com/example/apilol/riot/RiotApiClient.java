@@ -3,90 +3,313 @@ package com.example.apilol.riot;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.apilol.config.AppProperties;
-import org.springframework.http.HttpStatus;
+import com.example.apilol.db.IngestionLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Client Riot multi-région, non bloquant : un {@link WebClient} (pool Reactor Netty dédié,
+ * keep-alive, gzip) et un {@link RateLimiter} par routeur régional, les limites Riot étant
+ * par région. Les matchs sont routés par le préfixe de leur id, les joueurs par leur région.
+ * <p>
+ * Les méthodes sans préfixe ({@link #match}, {@link #matchIds}…) renvoient des
+ * {@link Mono}/{@link Flux} : l'attente du rate limit est un {@link Mono#delay}, les 5xx et
+ * timeouts sont réessayés avec un backoff exponentiel à jitter, et le corps de chaque réponse
+ * est consommé ou libéré quel que soit le statut. Les {@code getXxx} en sont les versions
+ * bloquantes, à appeler hors event loop (virtual threads).
+ * <p>
+ * Métriques par routeur et endpoint : {@code riot.request} (latence, par statut) et
+ * {@code riot.errors} (429 / 5xx) ; {@code riot.ratelimit.wait} par routeur et bucket limitant
+ * ({@link RateLimiter}). Chaque échange est aussi journalisé dans {@link IngestionLog}.
+ */
 @Component
 public class RiotApiClient {
-    private final WebClient client;
+    private record Route(WebClient client, RateLimiter limiter) {}
+
+    /** Statut réessayable (429, 5xx) ; le 429 a déjà bloqué le bucket fautif. */
+    private static final class RetryableStatus extends RuntimeException {
+        final int status;
+        RetryableStatus(int status, String path) {
+            super("HTTP " + status + " " + path, null, false, false);
+            this.status = status;
+        }
+    }
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
     private final ObjectMapper om = new ObjectMapper();
     private final AppProperties props;
+    private final ResponseCache cache;
+    private final MeterRegistry meters;
+    private final IngestionLog log;
 
-    public RiotApiClient(AppProperties props) {
+    public RiotApiClient(AppProperties props, ResponseCache cache, MeterRegistry meters, IngestionLog log) {
         this.props = props;
-        this.client = WebClient.builder()
-                .baseUrl("https://" + props.getRiot().getRouter() + ".api.riotgames.com")
-                .defaultHeader("X-Riot-Token", props.getRiot().getApiKey())
-                .build();
+        this.cache = cache;
+        this.meters = meters;
+        this.log = log;
+    }
+
+    private String baseUrl(String router) { return props.getRiot().getBaseUrl().replace("{router}", router); }
+
+    private Route route(String router) {
+        return routes.computeIfAbsent(router, r -> {
+            var h = props.getHttp();
+            var pool = ConnectionProvider.builder("riot-" + r)
+                    .maxConnections(h.getMaxConnections())
+                    .pendingAcquireMaxCount(-1) // le rate limiter borne déjà le débit
+                    .maxIdleTime(h.getMaxIdleTime())
+                    .evictInBackground(h.getMaxIdleTime())
+                    .build();
+            var http = HttpClient.create(pool)
+                    .keepAlive(true)
+                    .compress(h.isCompress())
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) h.getConnectTimeout().toMillis())
+                    .responseTimeout(h.getResponseTimeout());
+            var b = WebClient.builder()
+                    .clientConnector(new ReactorClientHttpConnector(http))
+                    .codecs(c -> c.defaultCodecs().maxInMemorySize((int) h.getMaxBodySize().toBytes()))
+                    .baseUrl(baseUrl(r));
+            String key = props.getRiot().getApiKey();
+            if (key != null && !key.isBlank()) b.defaultHeader("X-Riot-Token", key);
+            return new Route(b.build(), new RateLimiter(r, meters));
+        });
+    }
+
+    /** Limiteurs par routeur (ceux effectivement utilisés). */
+    public Map<String, RateLimiter> limiters() {
+        Map<String, RateLimiter> out = new TreeMap<>();
+        routes.forEach((r, route) -> out.put(r, route.limiter()));
+        return out;
     }
 
-    private String getBody(String path, Map<String, String> query) throws Exception {
-        for (;;) {
-            ClientResponse resp = client.get()
+    /**
+     * @param router routeur régional (europe, americas, asia, sea)
+     * @param method bucket de rate limit Riot (account, match-ids, match, timeline)
+     * @return le corps, vide si 404
+     */
+    private Mono<byte[]> fetch(String router, String method, String path, Map<String, String> query) {
+        if (props.getRiot().isReplay())
+            return Mono.error(new IllegalStateException("mode replay : pas d'appel réseau (" + path + ")"));
+        Route route = route(router);
+        var h = props.getHttp();
+        return Mono.defer(() -> {
+            int[] failures = {0}; // par appel ; les 429 ne comptent pas
+            return Mono.defer(() -> exchange(route, router, method, path, query))
+                    .retryWhen(Retry.from(signals -> signals.concatMap(sig -> {
+                        Throwable e = sig.failure();
+                        // 429 : le bucket est bloqué pendant Retry-After, le limiteur fait attendre
+                        if (e instanceof RetryableStatus rs && rs.status == 429) return Mono.just(0L);
+                        boolean retryable = e instanceof RetryableStatus || e instanceof WebClientRequestException
+                                || e instanceof TimeoutException;
+                        if (!retryable || failures[0] >= h.getMaxRetries()) return Mono.error(e);
+                        return Mono.delay(backoff(failures[0]++));
+                    })));
+        });
+    }
+
+    /** backoff × 2^n, plafonné, ±50 % pour ne pas resynchroniser les appelants */
+    private Duration backoff(long retry) {
+        var h = props.getHttp();
+        long base = h.getBackoff().toMillis() << Math.min(20, retry);
+        long capped = Math.min(base, h.getMaxBackoff().toMillis());
+        return Duration.ofMillis((long) (capped * ThreadLocalRandom.current().nextDouble(0.5, 1.5)));
+    }
+
+    private Mono<byte[]> exchange(Route route, String router, String method, String path, Map<String, String> query) {
+        RateLimiter limiter = route.limiter();
+        return acquire(limiter, method).then(Mono.defer(() -> {
+            long start = System.nanoTime();
+            return route.client().get()
                     .uri(uri -> {
                         var b = uri.path(path);
                         if (query != null) query.forEach(b::queryParam);
                         return b.build();
                     })
                     .accept(MediaType.APPLICATION_JSON)
-                    .exchange()
-                    .block(Duration.ofSeconds(30));
-
-            if (resp == null) throw new RuntimeException("No response");
-            HttpStatus st = (HttpStatus) resp.statusCode();
-            if (st.value() == 404) return null;
-            if (st.value() == 429) {
-                String ra = resp.headers().asHttpHeaders().getFirst("Retry-After");
-                long sleep = (ra != null ? Long.parseLong(ra) : 2);
-                Thread.sleep(1000L * sleep);
-                continue;
-            }
-            if (st.is5xxServerError()) { Thread.sleep(2000); continue; }
-            if (!st.is2xxSuccessful()) {
-                String body = resp.bodyToMono(String.class).block();
-                throw new RuntimeException("HTTP " + st.value() + " : " + body);
-            }
-            return resp.bodyToMono(String.class).block();
+                    // exchangeToMono libère le corps à la fin de la fonction, même non lu
+                    .exchangeToMono(resp -> handle(resp, limiter, router, method, path, query, start));
+        }));
+    }
+
+    private Mono<byte[]> handle(ClientResponse resp, RateLimiter limiter, String router, String method, String path,
+                                Map<String, String> query, long start) {
+        int st = resp.statusCode().value();
+        HttpHeaders h = resp.headers().asHttpHeaders();
+        String ra = h.getFirst("Retry-After");
+        limiter.update(method,
+                h.getFirst("X-App-Rate-Limit"), h.getFirst("X-App-Rate-Limit-Count"),
+                h.getFirst("X-Method-Rate-Limit"), h.getFirst("X-Method-Rate-Limit-Count"));
+        if (st == 404 || st == 429 || resp.statusCode().is5xxServerError()) {
+            // corps inutile : rendu au pool sans le copier
+            return resp.releaseBody().then(Mono.defer(() -> {
+                observe(router, method, path, query, st, ra, System.nanoTime() - start);
+                if (st == 404) return Mono.empty();
+                if (st == 429) // ne devrait plus arriver (limite "service" ou clé partagée) : on bloque le bucket
+                    limiter.penalize(method, h.getFirst("X-Rate-Limit-Type"), parseRetryAfter(ra, 2));
+                return Mono.error(new RetryableStatus(st, path));
+            }));
         }
+        return resp.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]).flatMap(body -> {
+            observe(router, method, path, query, st, ra, System.nanoTime() - start);
+            if (!resp.statusCode().is2xxSuccessful())
+                return Mono.error(new RuntimeException("HTTP " + st + " : " + new String(body, StandardCharsets.UTF_8)));
+            return Mono.just(body);
+        });
     }
 
-    public Map<String, Object> getAccountByRiotId(String gameName, String tagLine) throws Exception {
+    /** Réserve un jeton ; si le bucket est plein, réessaie après le délai indiqué, sans bloquer de thread. */
+    private static Mono<Void> acquire(RateLimiter limiter, String method) {
+        return Mono.defer(() -> {
+            long wait = limiter.tryAcquire(method);
+            if (wait == 0) return Mono.empty();
+            limiter.recordWait(method, wait);
+            return Mono.delay(Duration.ofNanos(wait)).then(acquire(limiter, method));
+        });
+    }
+
+    private static long parseRetryAfter(String retryAfter, long fallback) {
+        if (retryAfter == null) return fallback;
+        try { return Long.parseLong(retryAfter.trim()); } catch (NumberFormatException e) { return fallback; }
+    }
+
+    private void observe(String router, String method, String path, Map<String, String> query,
+                         int status, String retryAfter, long elapsedNanos) {
+        Timer.builder("riot.request").tag("router", router).tag("endpoint", method).tag("status", String.valueOf(status))
+                .register(meters).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (status == 429 || status >= 500)
+            meters.counter("riot.errors", "router", router, "endpoint", method, "status", String.valueOf(status)).increment();
+        StringBuilder url = new StringBuilder(baseUrl(router)).append(path);
+        if (query != null && !query.isEmpty()) {
+            url.append('?');
+            query.forEach((k, v) -> url.append(k).append('=').append(v).append('&'));
+            url.setLength(url.length() - 1);
+        }
+        Integer ra = null;
+        if (retryAfter != null) try { ra = Integer.valueOf(retryAfter.trim()); } catch (NumberFormatException ignored) {}
+        log.record("GET", url.toString(), status, ra, method + " " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms");
+    }
+
+    private <T> Mono<T> json(Mono<byte[]> body, TypeReference<T> type) {
+        return body.handle((b, sink) -> {
+            try { sink.next(om.readValue(b, type)); } catch (Exception e) { sink.error(e); }
+        });
+    }
+
+    /** Attend le résultat et relance l'exception d'origine (les checked sont enveloppées par block()). */
+    private static <T> T await(Mono<T> mono) throws Exception {
+        try {
+            return mono.block();
+        } catch (RuntimeException e) {
+            if (Exceptions.unwrap(e) instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    public Mono<Map<String, Object>> accountByRiotId(String gameName, String tagLine) {
         String name = URLEncoder.encode(gameName, StandardCharsets.UTF_8);
         String tag  = URLEncoder.encode(tagLine, StandardCharsets.UTF_8);
-        String body = getBody("/riot/account/v1/accounts/by-riot-id/" + name + "/" + tag, Map.of());
-        if (body == null) return null;
-        return om.readValue(body, new TypeReference<>() {});
+        return json(fetch(accountRouter(), "account",
+                "/riot/account/v1/accounts/by-riot-id/" + name + "/" + tag, Map.of()), new TypeReference<>() {});
     }
 
-    public List<String> getMatchIds(String puuid, int count, Integer queue, String type) throws Exception {
+    /** Routeur Match-V5 d'un joueur (Account-V1 region/by-game/lol), {@code app.riot.router} si inconnu. */
+    public Mono<String> routerOf(String puuid) {
+        String fallback = props.getRiot().getRouter();
+        return json(fetch(accountRouter(), "account-region",
+                "/riot/account/v1/region/by-game/lol/by-puuid/" + puuid, Map.of()),
+                new TypeReference<Map<String, Object>>() {})
+                .map(m -> Region.ofPlatform(Objects.toString(m.get("region"), null), fallback))
+                .defaultIfEmpty(fallback);
+    }
+
+    /** @param startTime / endTime epoch secondes (optionnels) ; count ≤ 100 côté Riot */
+    public Flux<String> matchIds(String router, String puuid, int start, int count, Integer queue, String type,
+                                 Long startTime, Long endTime) {
         Map<String,String> q = new LinkedHashMap<>();
-        q.put("start", "0");
+        q.put("start", String.valueOf(start));
         q.put("count", String.valueOf(count));
         if (queue != null) q.put("queue", String.valueOf(queue));
         if (type != null && !type.isBlank()) q.put("type", type);
-        String body = getBody("/lol/match/v5/matches/by-puuid/" + puuid + "/ids", q);
-        if (body == null) return List.of();
-        return om.readValue(body, new TypeReference<>() {
-        });
+        if (startTime != null) q.put("startTime", String.valueOf(startTime));
+        if (endTime != null) q.put("endTime", String.valueOf(endTime));
+        return json(fetch(router, "match-ids", "/lol/match/v5/matches/by-puuid/" + puuid + "/ids", q),
+                new TypeReference<List<String>>() {}).flatMapIterable(ids -> ids);
     }
 
-    public Map<String,Object> getMatch(String matchId) throws Exception {
-        String body = getBody("/lol/match/v5/matches/" + matchId, Map.of());
-        if (body == null) return null;
-        return om.readValue(body, new TypeReference<>() {});
+    /** Corps brut (octets de la réponse), à passer à {@code MatchParser} ; vide si 404. */
+    public Mono<byte[]> match(String matchId) {
+        return cached("match", matchId, "/lol/match/v5/matches/" + matchId);
     }
 
-    public Map<String,Object> getTimeline(String matchId) throws Exception {
-        String body = getBody("/lol/match/v5/matches/" + matchId + "/timeline", Map.of());
-        if (body == null) return null;
-        return om.readValue(body, new TypeReference<>() {});
+    /** Corps brut de la timeline (plusieurs Mo), vide si 404. */
+    public Mono<byte[]> timeline(String matchId) {
+        return cached("timeline", matchId, "/lol/match/v5/matches/" + matchId + "/timeline");
     }
-}
\ No newline at end of file
+
+    /** Match et timeline sont immuables : lecture/écriture dans le {@link ResponseCache}. En replay, cache seul. */
+    private Mono<byte[]> cached(String method, String matchId, String path) {
+        Mono<byte[]> remote = props.getRiot().isReplay() ? Mono.empty()
+                : fetch(Region.ofMatch(matchId, props.getRiot().getRouter()), method, path, Map.of());
+        if (!cache.enabled()) return remote;
+        String key = ResponseCache.key(method, matchId);
+        // E/S disque hors event loop
+        return Mono.fromCallable(() -> cache.get(key)).subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(remote.publishOn(Schedulers.boundedElastic()).doOnNext(body -> {
+                    try { cache.put(key, body); } catch (Exception e) { throw Exceptions.propagate(e); }
+                }));
+    }
+
+    public Map<String, Object> getAccountByRiotId(String gameName, String tagLine) throws Exception {
+        return await(accountByRiotId(gameName, tagLine));
+    }
+
+    public String getRouterOf(String puuid) throws Exception {
+        return await(routerOf(puuid));
+    }
+
+    public List<String> getMatchIds(String puuid, int count, Integer queue, String type) throws Exception {
+        return getMatchIds(props.getRiot().getRouter(), puuid, 0, count, queue, type, null, null);
+    }
+
+    public List<String> getMatchIds(String router, String puuid, int start, int count, Integer queue, String type,
+                                    Long startTime, Long endTime) throws Exception {
+        return await(matchIds(router, puuid, start, count, queue, type, startTime, endTime).collectList());
+    }
+
+    /** null si 404 */
+    public byte[] getMatch(String matchId) throws Exception {
+        return await(match(matchId));
+    }
+
+    /** null si 404 */
+    public byte[] getTimeline(String matchId) throws Exception {
+        return await(timeline(matchId));
+    }
+
+    private String accountRouter() { return Region.forAccount(props.getRiot().getRouter()); }
+}
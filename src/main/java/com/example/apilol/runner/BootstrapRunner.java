@@ -1,22 +1,83 @@
 package com.example.apilol.runner;
 
 import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.PartitionManager;
+import com.example.apilol.riot.RiotApiClient;
+import com.example.apilol.service.ColumnarExporter;
+import com.example.apilol.service.Crawler;
 import com.example.apilol.service.IngestionService;
+import com.example.apilol.service.JobWorker;
+import com.example.apilol.service.Reprocessor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
 @Component
 public class BootstrapRunner implements CommandLineRunner {
     private final AppProperties props;
     private final IngestionService service;
-    public BootstrapRunner(AppProperties props, IngestionService service) {
-        this.props = props; this.service = service;
+    private final RiotApiClient api;
+    private final Crawler crawler;
+    private final PartitionManager partitions;
+    private final JobWorker worker;
+    private final Reprocessor reprocessor;
+    private final ColumnarExporter exporter;
+    public BootstrapRunner(AppProperties props, IngestionService service, RiotApiClient api, Crawler crawler,
+                           PartitionManager partitions, JobWorker worker, Reprocessor reprocessor,
+                           ColumnarExporter exporter) {
+        this.props = props; this.service = service; this.api = api; this.crawler = crawler;
+        this.partitions = partitions; this.worker = worker; this.reprocessor = reprocessor; this.exporter = exporter;
     }
     @Override
     public void run(String... args) throws Exception {
+        archivePartitions();
+        if (props.getReprocess().isEnabled()) {
+            var r = props.getReprocess();
+            System.out.printf("→ Reprocess depuis le brut en base (patch %s, file %s)…%n",
+                    r.getPatch() == null || r.getPatch().isBlank() ? "*" : r.getPatch(), r.getQueue() == null ? "*" : r.getQueue());
+            long n = reprocessor.run();
+            System.out.printf("✅ Terminé (%d matchs reconstruits).%n", n);
+            return;
+        }
+        if (props.getExport().isEnabled()) {
+            System.out.println("→ Export colonnes…");
+            var files = exporter.run();
+            System.out.printf("✅ Terminé → %s%n", files.get(0).getParent());
+            return;
+        }
+        if (props.getRiot().isReplay()) {
+            System.out.println("→ Replay du cache disque…");
+            int n = service.replayCache();
+            System.out.printf("✅ Terminé (%d matchs rejoués).%n", n);
+            return;
+        }
+        for (String player : props.getJobs().getEnqueue()) {
+            if (player.isBlank()) continue;
+            System.out.printf("   job %s : %s%n", player.trim(), worker.enqueuePlayer(player) ? "enfilé" : "déjà en file");
+        }
+        if (props.getJobs().isWorker()) {
+            worker.run();
+            return;
+        }
         String name = props.getTarget().getGameName();
         String tag  = props.getTarget().getTagLine();
         int count   = props.getTarget().getCount();
+        boolean hasTarget = name != null && !name.isBlank() && tag != null && !tag.isBlank();
+        if (props.getCrawl().isEnabled()) {
+            System.out.printf("→ Crawl depuis %s (profondeur ≤ %d, %d matchs max)…%n",
+                    hasTarget ? name + "#" + tag : "la frontière existante",
+                    props.getCrawl().getMaxDepth(), props.getCrawl().getMaxMatches());
+            String seed = hasTarget ? service.resolvePuuid(name, tag) : null;
+            String seedRouter = seed != null && props.getRiot().getRouters().size() > 1
+                    ? api.getRouterOf(seed) : props.getRiot().getRouter();
+            int n = crawler.crawl(seed, seedRouter);
+            System.out.printf("✅ Terminé (%d nouveaux matchs).%n", n);
+            printWaits();
+            return;
+        }
         if (name == null || name.isBlank() || tag == null || tag.isBlank()) {
             System.out.println("⚠️  GAME_NAME / TAG_LINE manquants → pas d’ingestion auto.");
             return;
@@ -24,5 +85,23 @@ public class BootstrapRunner implements CommandLineRunner {
         System.out.printf("→ Ingestion %s#%s (%d matchs)…%n", name, tag, count);
         service.ingestPlayer(name, tag, count);
         System.out.println("✅ Terminé.");
+        printWaits();
+    }
+
+    private void archivePartitions() throws Exception {
+        int retain = props.getPartition().getRetainMonths();
+        if (retain <= 0) return;
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(retain - 1);
+        for (YearMonth m : partitions.months()) {
+            if (!m.isBefore(oldestKept)) break;
+            var files = partitions.archive(m, Path.of(props.getPartition().getArchiveDir()));
+            System.out.printf("   partitions %s archivées → %s%n", m, files);
+        }
+    }
+
+    private void printWaits() {
+        api.limiters().forEach((router, limiter) -> limiter.waitTimes().forEach((bucket, waited) ->
+                System.out.printf("   rate limit %-8s %-14s attente %6d ms (%d fois)%n",
+                        router, bucket, waited.toMillis(), limiter.waitCounts().getOrDefault(bucket, 0L))));
     }
 }
\ No newline at end of file
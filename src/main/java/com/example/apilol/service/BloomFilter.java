@@ -0,0 +1,54 @@
+package com.example.apilol.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Filtre de Bloom thread-safe sur des chaînes (faux positifs possibles, jamais de faux négatifs). */
+public final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long size;
+    private final int hashes;
+
+    /**
+     * @param expected nombre d'éléments attendus
+     * @param fpp      taux de faux positifs visé (ex: 0.01)
+     */
+    public BloomFilter(long expected, double fpp) {
+        long m = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.size = Math.max(64, m);
+        this.hashes = Math.max(1, (int) Math.round((double) size / expected * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((size + 63) / 64));
+    }
+
+    public void add(String s) {
+        long h1 = hash(s, 0x9E3779B97F4A7C15L), h2 = hash(s, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, size);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, cur, cur | mask)) { /* retry */ }
+        }
+    }
+
+    public boolean mightContain(String s) {
+        long h1 = hash(s, 0x9E3779B97F4A7C15L), h2 = hash(s, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, size);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** FNV-1a 64 bits salé puis mélangé (finaliseur de SplitMix64). */
+    private static long hash(String s, long seed) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30; h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27; h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
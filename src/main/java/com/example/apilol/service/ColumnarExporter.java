@@ -0,0 +1,122 @@
+package com.example.apilol.service;
+
+import com.example.apilol.columnar.ColumnType;
+import com.example.apilol.columnar.ColumnWriter;
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.Db;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export analytique : match, participant et frames d'un patch / d'une file vers des fichiers
+ * colonnes {@code .lolc} ({@link ColumnWriter}), lus ensuite hors base par
+ * {@link com.example.apilol.columnar.ColumnReader}. Les lignes arrivent par un curseur
+ * serveur et sont écrites au fil de l'eau. Les matchs sont identifiés par
+ * {@code (platform_id, game_id)}, la partie numérique de match_id.
+ */
+@Service
+public class ColumnarExporter {
+    private static final String GAME_ID = "split_part(m.match_id, '_', 2)::bigint AS game_id, m.platform_id";
+
+    private static final String MATCH = "SELECT " + GAME_ID + """
+        , m.patch, m.queue_id, m.game_creation_ms, m.game_duration_s, m.map_id
+        FROM lol.match m""";
+
+    private static final String PARTICIPANT = "SELECT " + GAME_ID + """
+        , p.participant_id, p.puuid, p.team_id, p.champion_id, p.champion_name, p.individual_position,
+          p.lane, p.role, p.summoner1_id, p.summoner2_id,
+          p.item0, p.item1, p.item2, p.item3, p.item4, p.item5, p.item6,
+          p.kills, p.deaths, p.assists, p.total_damage_to_champs, p.total_damage_taken, p.damage_self_mitigated,
+          p.gold_earned, p.vision_score, p.wards_placed, p.wards_killed, p.detector_wards_placed,
+          p.champ_level, p.total_minions_killed, p.neutral_minions_killed, p.time_ccing_others, p.win
+        FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id""";
+
+    /** les deux stockages de frames (lignes et séries packées) */
+    private static final String FRAME = "SELECT " + GAME_ID + """
+        , f.frame_index, f.ts_ms, f.participant_id, f.total_gold, f.current_gold, f.xp, f.level,
+          f.minions_killed, f.jungle_minions_killed, f.position_x, f.position_y
+        FROM (SELECT match_id, frame_index, ts_ms, participant_id, total_gold, current_gold, xp, level,
+                     minions_killed, jungle_minions_killed, position_x, position_y FROM lol.participant_frame
+              UNION ALL
+              SELECT match_id, frame_index, ts_ms, participant_id, total_gold, current_gold, xp, level,
+                     minions_killed, jungle_minions_killed, position_x, position_y FROM lol.v_series_frames) f
+        JOIN lol.match m ON m.match_id = f.match_id""";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AppProperties cfg;
+
+    public ColumnarExporter(Db db, TransactionTemplate tx, AppProperties cfg) {
+        this.jdbc = db.jdbc();
+        this.tx = tx;
+        this.cfg = cfg;
+    }
+
+    /** @return les fichiers écrits, dans {@code <dir>/<patch|all>_<queue|all>/} */
+    public List<Path> run() throws IOException {
+        var c = cfg.getExport();
+        boolean byPatch = c.getPatch() != null && !c.getPatch().isBlank();
+        StringBuilder where = new StringBuilder(" WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (byPatch) { where.append(" AND m.patch = ?"); args.add(c.getPatch()); }
+        if (c.getQueue() != null) { where.append(" AND m.queue_id = ?"); args.add(c.getQueue()); }
+        Path dir = Path.of(c.getDir(), (byPatch ? c.getPatch() : "all") + "_" + (c.getQueue() != null ? c.getQueue() : "all"));
+
+        List<Path> out = new ArrayList<>();
+        for (var e : List.of(List.of("match", MATCH), List.of("participant", PARTICIPANT), List.of("participant_frame", FRAME))) {
+            Path file = dir.resolve(e.get(0) + ".lolc");
+            long t0 = System.nanoTime();
+            long rows = export(e.get(1) + where, args.toArray(), file);
+            System.out.printf("   %-18s %,12d lignes  %,8d Ko  %5d ms%n", e.get(0), rows, Files.size(file) / 1024,
+                    (System.nanoTime() - t0) / 1_000_000);
+            out.add(file);
+        }
+        return out;
+    }
+
+    private long export(String sql, Object[] args, Path file) {
+        // un curseur PostgreSQL n'existe que dans une transaction : sinon fetchSize est ignoré
+        JdbcTemplate cursor = new JdbcTemplate(jdbc.getDataSource());
+        cursor.setFetchSize(cfg.getExport().getFetchSize());
+        return tx.execute(status -> cursor.query(sql, (ResultSetExtractor<Long>) rs -> {
+            ResultSetMetaData md = rs.getMetaData();
+            int n = md.getColumnCount();
+            ColumnType[] types = new ColumnType[n];
+            List<ColumnWriter.Column> columns = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                types[i] = ColumnType.ofSql(md.getColumnType(i + 1));
+                if (types[i] == null) throw new IllegalArgumentException("colonne non exportable : " + md.getColumnLabel(i + 1));
+                columns.add(new ColumnWriter.Column(md.getColumnLabel(i + 1), types[i]));
+            }
+            try (ColumnWriter w = new ColumnWriter(file, columns)) {
+                while (rs.next()) {
+                    for (int i = 0; i < n; i++) {
+                        int col = i + 1;
+                        switch (types[i]) {
+                            case INT -> { int v = rs.getInt(col); if (rs.wasNull()) w.writeNull(i); else w.writeInt(i, v); }
+                            case LONG -> { long v = rs.getLong(col); if (rs.wasNull()) w.writeNull(i); else w.writeLong(i, v); }
+                            case DOUBLE -> { double v = rs.getDouble(col); if (rs.wasNull()) w.writeNull(i); else w.writeDouble(i, v); }
+                            case BOOL -> { boolean v = rs.getBoolean(col); if (rs.wasNull()) w.writeNull(i); else w.writeBool(i, v); }
+                            case DICT -> w.writeString(i, rs.getString(col));
+                        }
+                    }
+                    w.endRow();
+                }
+                w.finish();
+                return w.rows();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args));
+    }
+}
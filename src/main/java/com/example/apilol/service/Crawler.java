@@ -0,0 +1,127 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.FrontierStore;
+import com.example.apilol.db.FrontierStore.Node;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawl en largeur : chaque match nouvellement stocké ajoute ses participants à
+ * lol.crawl_frontier (profondeur + 1). Plusieurs joueurs sont traités en parallèle pour
+ * que le budget API ne reste jamais inactif entre deux joueurs, et chaque routeur de
+ * {@code app.riot.routers} a ses propres workers (limites Riot par région). Chaque worker réserve
+ * sa part de {@code app.crawl.maxMatches} avant de traiter un joueur et rend le reste : le total
+ * n'est jamais dépassé. Reprise après arrêt : la frontière est en base, les matchs déjà stockés
+ * sont sautés et les joueurs en échec re-tentés jusqu'à {@code app.crawl.maxAttempts}.
+ */
+@Service
+public class Crawler {
+    private final IngestionService ingestion;
+    private final FrontierStore frontier;
+    private final SeenMatches seen;
+    private final AppProperties cfg;
+
+    private final AtomicInteger total = new AtomicInteger();
+    /** matchs encore permis par app.crawl.maxMatches, réservés avant chaque joueur */
+    private final AtomicInteger budget = new AtomicInteger();
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    public Crawler(IngestionService ingestion, FrontierStore frontier, SeenMatches seen, AppProperties cfg) {
+        this.ingestion = ingestion;
+        this.frontier = frontier;
+        this.seen = seen;
+        this.cfg = cfg;
+    }
+
+    /**
+     * @param seedPuuid   joueur de départ (profondeur 0), peut être null pour reprendre la frontière existante
+     * @param seedRouter  routeur du joueur de départ
+     */
+    public int crawl(String seedPuuid, String seedRouter) throws Exception {
+        var c = cfg.getCrawl();
+        seen.load();
+        int resumed = frontier.resetInProgress(c.getMaxAttempts());
+        if (resumed > 0) System.out.printf("   reprise : %d joueur(s) remis dans la frontière%n", resumed);
+        if (seedPuuid != null) frontier.seed(seedPuuid, seedRouter);
+
+        budget.set(c.getMaxMatches());
+        int workers = Math.max(1, c.getWorkers());
+        List<Future<Void>> running = new ArrayList<>();
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String router : cfg.getRiot().getRouters())
+                for (int i = 0; i < workers; i++) running.add(exec.submit(() -> { worker(router); return null; }));
+        }
+        // un worker mort (base injoignable dans claim…) ne doit pas passer pour une frontière épuisée
+        for (Future<Void> f : running) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            }
+        }
+        return total.get();
+    }
+
+    private void worker(String router) throws InterruptedException {
+        var c = cfg.getCrawl();
+        int perPlayer = cfg.getTarget().getCount();
+        AtomicInteger regionActive = active.computeIfAbsent(router, r -> new AtomicInteger());
+        while (true) {
+            regionActive.incrementAndGet();
+            Node node = null;
+            int quota = 0;
+            try {
+                quota = reserve(perPlayer);
+                if (quota > 0) node = frontier.claim(router, cfg.getRiot().getRouter(), c.getMaxDepth());
+                if (node != null) quota -= visit(node, quota);
+            } finally {
+                budget.addAndGet(quota); // part non consommée
+                regionActive.decrementAndGet();
+            }
+            if (node == null) {
+                // frontière vide ou budget réservé : un autre worker (toutes régions) peut encore
+                // l'alimenter ou rendre sa réserve
+                if (active.values().stream().allMatch(a -> a.get() == 0)) return;
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    /** Prend jusqu'à {@code want} matchs du budget ; 0 si épuisé. */
+    private int reserve(int want) {
+        while (true) {
+            int left = budget.get();
+            int n = Math.min(want, left);
+            if (n <= 0 || budget.compareAndSet(left, left - n)) return Math.max(0, n);
+        }
+    }
+
+    /** @return nombre de matchs écrits, au plus {@code quota} */
+    private int visit(Node node, int quota) {
+        List<String> fresh = List.of();
+        try {
+            fresh = ingestion.ingestPuuid(node.router(), node.puuid(), quota, quota);
+            int n = total.addAndGet(fresh.size());
+            int queued = node.depth() < cfg.getCrawl().getMaxDepth()
+                    ? frontier.enqueueParticipants(fresh, node.depth() + 1) : 0;
+            frontier.done(node.puuid(), fresh.size());
+            System.out.printf("   [%s d=%d] %s : %d nouveaux matchs, +%d joueurs (total %d)%n",
+                    node.router(), node.depth(), node.puuid(), fresh.size(), queued, n);
+        } catch (Exception e) {
+            frontier.failed(node.puuid(), String.valueOf(e.getMessage()));
+            System.out.printf("⚠️  %s : %s%n", node.puuid(), e.getMessage());
+        }
+        return fresh.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.HeatmapStore;
+import com.example.apilol.db.HeatmapStore.Filter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heatmaps fusionnées à la demande, mises en cache par filtre. Pas d'invalidation par match :
+ * une heatmap agrège des milliers de parties, le TTL suffit. Les deltas écrits à l'ingestion
+ * sont fusionnés en tâche de fond toutes les {@code app.stats.heatmapRollup}.
+ */
+@Service
+public class HeatmapService {
+    public record Heatmap(int grid, int mapSize, long total, int[] cells) {}
+
+    private final HeatmapStore store;
+    private final TtlLruCache<Filter, Heatmap> cache;
+    private final ScheduledExecutorService rollups = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("heatmap-rollup").factory());
+
+    public HeatmapService(HeatmapStore store, AppProperties cfg) {
+        this.store = store;
+        this.cache = new TtlLruCache<>(cfg.getStats().getCacheSize(), cfg.getStats().getCacheTtl());
+        long every = cfg.getStats().getHeatmapRollup().toMillis();
+        if (every > 0) rollups.scheduleWithFixedDelay(this::rollup, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rollups.shutdownNow();
+        rollup(); // deltas des derniers matchs : sinon fusionnés au prochain démarrage
+    }
+
+    private void rollup() {
+        try {
+            store.rollup();
+        } catch (RuntimeException e) {
+            System.err.printf("   fusion des heatmaps échouée : %s%n", e.getMessage());
+        }
+    }
+
+    public Heatmap get(Filter filter) {
+        return cache.get(filter, () -> {
+            int[] cells = store.query(filter);
+            long total = 0;
+            for (int c : cells) total += c;
+            return new Heatmap(HeatmapStore.GRID, HeatmapStore.MAP_SIZE, total, cells);
+        });
+    }
+}
@@ -3,14 +3,17 @@ package com.example.apilol.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.apilol.config.AppProperties;
 import com.example.apilol.db.Db;
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.db.MatchStore;
+import com.example.apilol.db.WatermarkStore;
+import com.example.apilol.db.WatermarkStore.Watermark;
+import com.example.apilol.riot.ResponseCache;
 import com.example.apilol.riot.RiotApiClient;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.example.apilol.db.Db.jsonb;
 
@@ -19,40 +22,200 @@ public class IngestionService {
     private final RiotApiClient api;
     private final JdbcTemplate jdbc;
     private final AppProperties cfg;
+    private final MatchStore store;
+    private final WatermarkStore watermarks;
+    private final ResponseCache cache;
+    private final SeenMatches seen;
+    private final StatsService stats;
     private final ObjectMapper om = new ObjectMapper();
 
-    public IngestionService(RiotApiClient api, Db db, AppProperties cfg) {
+    /** taille de page max de /matches/by-puuid/{puuid}/ids */
+    private static final int PAGE = 100;
+
+    public IngestionService(RiotApiClient api, Db db, AppProperties cfg, MatchStore store, WatermarkStore watermarks,
+                            ResponseCache cache, SeenMatches seen, StatsService stats) {
         this.api = api;
         this.jdbc = db.jdbc();
         this.cfg = cfg;
+        this.store = store;
+        this.watermarks = watermarks;
+        this.cache = cache;
+        this.seen = seen;
+        this.stats = stats;
     }
 
     /** Propage les exceptions car RiotApiClient déclare throws Exception */
     public void ingestPlayer(String gameName, String tagLine, int count) throws Exception {
+        String puuid = resolvePuuid(gameName, tagLine);
+        ingestPuuid(routerOf(puuid), puuid, count);
+    }
+
+    /** Routeur Match-V5 du joueur ; un seul routeur configuré : inutile de le demander. */
+    public String routerOf(String puuid) throws Exception {
+        return cfg.getRiot().getRouters().size() > 1 ? api.getRouterOf(puuid) : cfg.getRiot().getRouter();
+    }
+
+    /** Riot ID → puuid, avec upsert de lol.summoner. */
+    public String resolvePuuid(String gameName, String tagLine) throws Exception {
         var account = api.getAccountByRiotId(gameName, tagLine);
         if (account == null) throw new RuntimeException("PUUID introuvable");
         String puuid = Objects.toString(account.get("puuid"), null);
         upsertSummoner(puuid, account);
+        return puuid;
+    }
+
+    /**
+     * Ingère jusqu'à {@code count} matchs d'un joueur (par file de {@code app.riot.queues}).
+     * @param router routeur régional du joueur (les matchs sont ensuite routés par leur id)
+     * @return les ids des matchs nouvellement écrits (tous les candidats hors mode incrémental)
+     */
+    public List<String> ingestPuuid(String router, String puuid, int count) throws Exception {
+        return ingestPuuid(router, puuid, count, Integer.MAX_VALUE);
+    }
 
+    /**
+     * Comme {@link #ingestPuuid(String, String, int)}, en écrivant au plus {@code maxNew} matchs
+     * (budget du crawler). Liste tronquée : le watermark n'avance pas, les matchs restants seront
+     * repris à la prochaine visite.
+     */
+    public List<String> ingestPuuid(String router, String puuid, int count, int maxNew) throws Exception {
+        List<String> matchIds = candidateMatchIds(router, puuid, count);
+        if (!cfg.getIngest().isIncremental()) {
+            if (matchIds.size() > maxNew) matchIds = List.copyOf(matchIds.subList(0, maxNew));
+            ingestMatches(matchIds);
+            return matchIds;
+        }
+        // réservés : un autre worker qui liste les mêmes matchs les saute
+        List<String> fresh = seen.claim(matchIds);
+        boolean truncated = fresh.size() > maxNew;
+        if (truncated) {
+            seen.release(fresh.subList(maxNew, fresh.size()));
+            fresh = List.copyOf(fresh.subList(0, maxNew));
+        }
+        try {
+            ingestMatches(fresh);
+            seen.addAll(fresh);
+        } finally {
+            seen.release(fresh);
+        }
+        if (!truncated) watermarks.advance(puuid, matchIds);
+        return fresh;
+    }
+
+    /**
+     * Ids candidats d'un joueur (jusqu'à {@code count}, répartis sur {@code app.riot.queues}).
+     * En mode incrémental avec un watermark, {@code count} est ignoré : tous les matchs depuis
+     * le watermark sont listés, sinon ceux au-delà de {@code count} seraient sautés pour de bon
+     * au prochain {@link WatermarkStore#advance}. Les matchs déjà en base ne sont pas filtrés.
+     */
+    public List<String> candidateMatchIds(String router, String puuid, int count) throws Exception {
         List<Integer> queues = cfg.getRiot().getQueues();
         String type = cfg.getRiot().getType();
-        List<String> matchIds = new ArrayList<>();
+        Watermark wm = cfg.getIngest().isIncremental() ? watermarks.find(puuid) : null;
+        if (queues == null || queues.isEmpty()) return listMatchIds(router, puuid, count, null, type, wm);
+
+        int per = Math.max(1, (int) Math.ceil(count / (double) queues.size()));
+        Set<String> matchIds = new LinkedHashSet<>(); // dédup
+        for (Integer q : queues) matchIds.addAll(listMatchIds(router, puuid, per, q, type, wm));
+        return new ArrayList<>(matchIds);
+    }
 
-        if (queues != null && !queues.isEmpty()) {
-            int per = Math.max(1, (int) Math.ceil(count / (double) queues.size()));
-            for (Integer q : queues) matchIds.addAll(api.getMatchIds(puuid, per, q, type));
-            matchIds = new ArrayList<>(new LinkedHashSet<>(matchIds)); // dédup
-        } else {
-            matchIds = api.getMatchIds(puuid, count, null, type);
+    /**
+     * Rejoue tous les matchs du cache disque vers la base (mode replay) : vitesse disque,
+     * aucun appel API. En incrémental, les matchs déjà en base sont sautés.
+     * @return nombre de matchs candidats
+     */
+    public int replayCache() throws Exception {
+        List<String> ids = cache.ids("match");
+        if (cfg.getIngest().isIncremental()) ids = seen.unknown(ids);
+        ingestMatches(ids);
+        return ids.size();
+    }
+
+    /**
+     * Liste jusqu'à {@code count} ids, page par page (100 max par appel). Avec un watermark,
+     * seuls les matchs depuis {@code newest_start_s} sont demandés et on pagine sans limite
+     * jusqu'à le rejoindre ou épuiser la liste : rien de nouveau = un seul appel (par file).
+     */
+    private List<String> listMatchIds(String router, String puuid, int count, Integer queue, String type, Watermark wm) throws Exception {
+        Long startTime = wm != null ? wm.newestStartS() : null;
+        int limit = wm != null ? Integer.MAX_VALUE : count;
+        List<String> out = new ArrayList<>();
+        for (int start = 0; out.size() < limit; start += PAGE) {
+            int n = Math.min(PAGE, limit - out.size());
+            List<String> page = api.getMatchIds(router, puuid, start, n, queue, type, startTime, null);
+            for (String id : page) {
+                if (wm != null && id.equals(wm.newestMatchId())) return out;
+                out.add(id);
+            }
+            if (page.size() < n) break;
         }
+        return out;
+    }
 
-        for (String mid : matchIds) {
-            var match = api.getMatch(mid);
-            if (match == null) continue;
-            upsertMatch(match);
+    /**
+     * Au plus {@code app.ingest.concurrency} matchs en vol, chacun sur un virtual thread :
+     * match et timeline sont récupérés en parallèle, les écritures DB d'un match recouvrent
+     * le réseau des autres. Un match et sa timeline sont écrits ensemble dans une transaction
+     * ({@link MatchStore}), la ligne match en premier.
+     */
+    public void ingestMatches(List<String> matchIds) throws Exception {
+        int concurrency = Math.max(1, cfg.getIngest().getConcurrency());
+        if (concurrency == 1) {
+            for (String mid : matchIds) {
+                var match = api.getMatch(mid);
+                if (match == null) continue;
+                persist(match, api.getTimeline(mid));
+            }
+            return;
+        }
 
-            var timeline = api.getTimeline(mid);
-            insertTimeline(mid, timeline);
+        Semaphore slots = new Semaphore(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String mid : matchIds) {
+                slots.acquire();
+                futures.add(exec.submit(() -> {
+                    try {
+                        ingestMatch(mid, exec);
+                        return null;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            Exception failure = null;
+            for (var f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    if (failure == null) failure = cause; else failure.addSuppressed(cause);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * Un seul match, sur le thread appelant (worker de la file de travaux).
+     * @return false si le match n'existe pas (404)
+     */
+    public boolean ingestMatch(String mid) throws Exception {
+        var match = api.getMatch(mid);
+        if (match == null) return false;
+        persist(match, api.getTimeline(mid));
+        return true;
+    }
+
+    private void ingestMatch(String mid, ExecutorService exec) throws Exception {
+        Future<byte[]> timeline = exec.submit(() -> api.getTimeline(mid));
+        var match = api.getMatch(mid);
+        if (match == null) { timeline.cancel(true); return; }
+        try {
+            persist(match, timeline.get());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
         }
     }
 
@@ -74,222 +237,11 @@ public class IngestionService {
         );
     }
 
-    @SuppressWarnings("unchecked")
-    private void upsertMatch(Map<String,Object> match) throws Exception {
-        var meta = (Map<String,Object>) match.get("metadata");
-        var info = (Map<String,Object>) match.get("info");
-        String mid = Objects.toString(meta.get("matchId"), null);
-        String gameVersion = Objects.toString(info.get("gameVersion"), null);
-        String patch = (gameVersion != null && gameVersion.contains("."))
-                ? gameVersion.split("\\.")[0] + "." + gameVersion.split("\\.")[1] : null;
-
-        jdbc.update("""
-            INSERT INTO lol.match(match_id, data_version, game_version, patch, queue_id,
-              game_creation_ms, game_start_ms, game_end_ms, game_duration_s, map_id, platform_id,
-              tournament_code, region_router, raw)
-            VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?)
-            ON CONFLICT (match_id) DO UPDATE SET raw = EXCLUDED.raw
-        """,
-                mid,
-                Objects.toString(meta.get("dataVersion"), null),
-                gameVersion, patch,
-                toInt(info.get("queueId")),
-                toLong(info.get("gameCreation")),
-                toLong(info.get("gameStartTimestamp")),
-                toLong(info.get("gameEndTimestamp")),
-                toInt(info.get("gameDuration")),
-                toInt(info.get("mapId")),
-                Objects.toString(info.get("platformId"), null),
-                Objects.toString(info.get("tournamentCode"), null),
-                cfg.getRiot().getRouter(),
-                jsonb(om.writeValueAsString(match))
-        );
-
-        // teams
-        var teams = (List<Map<String,Object>>) info.getOrDefault("teams", List.of());
-        for (var t : teams) {
-            Integer teamId = toInt(t.get("teamId"));
-            var objectives = (Map<String,Object>) t.getOrDefault("objectives", Map.of());
-            var baron = (Map<String,Object>) objectives.getOrDefault("baron", Map.of());
-            var dragon = (Map<String,Object>) objectives.getOrDefault("dragon", Map.of());
-            var herald = (Map<String,Object>) objectives.getOrDefault("riftHerald", Map.of());
-            var inhib  = (Map<String,Object>) objectives.getOrDefault("inhibitor", Map.of());
-            var tower  = (Map<String,Object>) objectives.getOrDefault("tower", Map.of());
-            var bans = (List<Map<String,Object>>) t.getOrDefault("bans", List.of());
-
-            Integer[] b = new Integer[5];
-            for (int i=0;i<5;i++) b[i] = (i < bans.size()) ? toInt(bans.get(i).get("championId")) : null;
-
-            jdbc.update("""
-                INSERT INTO lol.team(match_id, team_id, win, baron_kills, dragon_kills, rift_herald_kills,
-                  inhibitor_kills, tower_kills, ban0, ban1, ban2, ban3, ban4)
-                VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)
-                ON CONFLICT (match_id, team_id) DO UPDATE SET win = EXCLUDED.win
-            """,
-                    mid, teamId, toBool(t.get("win")),
-                    toInt(baron.get("kills")), toInt(dragon.get("kills")), toInt(herald.get("kills")),
-                    toInt(inhib.get("kills")), toInt(tower.get("kills")),
-                    b[0], b[1], b[2], b[3], b[4]
-            );
-        }
-
-        // participants
-        var parts = (List<Map<String,Object>>) info.getOrDefault("participants", List.of());
-        for (var p : parts) {
-            jdbc.update("""
-                INSERT INTO lol.participant(
-                  match_id, participant_id, puuid, team_id, champion_id, champion_name,
-                  riot_id_game_name, riot_id_tagline, individual_position, lane, role,
-                  summoner1_id, summoner2_id, item0, item1, item2, item3, item4, item5, item6,
-                  kills, deaths, assists, total_damage_to_champs, total_damage_taken,
-                  damage_self_mitigated, gold_earned, vision_score, wards_placed, wards_killed,
-                  detector_wards_placed, champ_level, total_minions_killed, neutral_minions_killed,
-                  time_ccing_others, win, perks, stats
-                ) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)
-                ON CONFLICT (match_id, participant_id) DO UPDATE SET perks = EXCLUDED.perks, stats = EXCLUDED.stats
-            """,
-                    mid, toInt(p.get("participantId")), Objects.toString(p.get("puuid"), null),
-                    toInt(p.get("teamId")), toInt(p.get("championId")),
-                    Objects.toString(p.get("championName"), null),
-                    Objects.toString(p.get("riotIdGameName"), null), Objects.toString(p.get("riotIdTagline"), null),
-                    Objects.toString(p.get("individualPosition"), null),
-                    Objects.toString(p.get("lane"), null), Objects.toString(p.get("role"), null),
-                    toInt(p.get("summoner1Id")), toInt(p.get("summoner2Id")),
-                    toInt(p.get("item0")), toInt(p.get("item1")), toInt(p.get("item2")),
-                    toInt(p.get("item3")), toInt(p.get("item4")), toInt(p.get("item5")), toInt(p.get("item6")),
-                    toInt(p.get("kills")), toInt(p.get("deaths")), toInt(p.get("assists")),
-                    toInt(p.get("totalDamageDealtToChampions")), toInt(p.get("totalDamageTaken")),
-                    toInt(p.get("damageSelfMitigated")), toInt(p.get("goldEarned")),
-                    toDouble(p.get("visionScore")), toInt(p.get("wardsPlaced")), toInt(p.get("wardsKilled")),
-                    toInt(p.get("detectorWardsPlaced")), toInt(p.get("champLevel")),
-                    toInt(p.get("totalMinionsKilled")), toInt(p.get("neutralMinionsKilled")),
-                    toInt(p.get("timeCCingOthers")), toBool(p.get("win")),
-                    jsonb(om.writeValueAsString(p.get("perks"))),
-                    jsonb(om.writeValueAsString(stripParticipantKnown(p)))
-            );
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private void insertTimeline(String matchId, Map<String,Object> timeline) throws Exception {
-        if (timeline == null) return;
-        var info = (Map<String,Object>) timeline.get("info");
-        var frames = (List<Map<String,Object>>) info.getOrDefault("frames", List.of());
-
-        for (int idx=0; idx<frames.size(); idx++) {
-            var fr = frames.get(idx);
-            Long ts = toLong(fr.get("timestamp"));
-            var pf = (Map<String,Object>) fr.getOrDefault("participantFrames", Map.of());
-
-            for (var e : pf.entrySet()) {
-                int pid = Integer.parseInt(e.getKey());
-                var d = (Map<String,Object>) e.getValue();
-                var pos = (Map<String,Object>) d.getOrDefault("position", Map.of());
-                jdbc.update("""
-                    INSERT INTO lol.participant_frame(
-                      match_id, frame_index, ts_ms, participant_id, total_gold, current_gold,
-                      xp, level, minions_killed, jungle_minions_killed, position_x, position_y, damage_stats
-                    ) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)
-                    ON CONFLICT (match_id, frame_index, participant_id) DO NOTHING
-                """,
-                        matchId, idx, ts, pid,
-                        toInt(d.get("totalGold")), toInt(d.get("currentGold")),
-                        toInt(d.get("xp")), toInt(d.get("level")),
-                        toInt(d.get("minionsKilled")), toInt(d.get("jungleMinionsKilled")),
-                        toInt(pos.get("x")), toInt(pos.get("y")),
-                        jsonb(om.writeValueAsString(d.get("damageStats")))
-                );
-            }
-
-            var events = (List<Map<String,Object>>) fr.getOrDefault("events", List.of());
-            for (var ev : events) {
-                var pos = (Map<String,Object>) ev.getOrDefault("position", Map.of());
-                List<Integer> assists = (List<Integer>) ev.get("assistingParticipantIds");
-
-                jdbc.update(con -> {
-                    PreparedStatement ps = con.prepareStatement("""
-                        INSERT INTO lol.timeline_event(
-                          match_id, ts_ms, event_type, participant_id, killer_id, victim_id,
-                          team_id, assisting_ids, position_x, position_y, item_id, after_id, before_id,
-                          skill_slot, level_up_type, ward_type, building_type, tower_type,
-                          monster_type, monster_sub_type, bounty, gold_gain, other
-                        ) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)
-                    """);
-                    ps.setString(1, matchId);
-                    setLong(ps, 2, toLong(ev.get("timestamp")));
-                    ps.setString(3, Objects.toString(ev.get("type"), null));
-                    setInt(ps, 4, toInt(ev.get("participantId")));
-                    setInt(ps, 5, toInt(ev.get("killerId")));
-                    setInt(ps, 6, toInt(ev.get("victimId")));
-                    setInt(ps, 7, toInt(ev.get("teamId")));
-
-                    if (assists != null && !assists.isEmpty()) {
-                        ps.setArray(8, con.createArrayOf("int4", assists.toArray()));
-                    } else {
-                        ps.setNull(8, Types.ARRAY);
-                    }
-
-                    setInt(ps, 9, toInt(pos.get("x")));
-                    setInt(ps,10, toInt(pos.get("y")));
-                    setInt(ps,11, toInt(ev.get("itemId")));
-                    setInt(ps,12, toInt(ev.get("afterId")));
-                    setInt(ps,13, toInt(ev.get("beforeId")));
-                    setInt(ps,14, toInt(ev.get("skillSlot")));
-                    ps.setString(15, Objects.toString(ev.get("levelUpType"), null));
-                    ps.setString(16, Objects.toString(ev.get("wardType"), null));
-                    ps.setString(17, Objects.toString(ev.get("buildingType"), null));
-                    ps.setString(18, Objects.toString(ev.get("towerType"), null));
-                    ps.setString(19, Objects.toString(ev.get("monsterType"), null));
-                    ps.setString(20, Objects.toString(ev.get("monsterSubType"), null));
-                    setInt(ps,21, toInt(ev.get("bounty")));
-                    setInt(ps,22, toInt(ev.get("goldGain")));
-                    try {
-                        ps.setObject(23, jsonb(om.writeValueAsString(stripEventKnown(ev))));
-                    } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-                        throw new RuntimeException("Erreur sérialisation JSON (event)", e);
-                    }
-                    return ps;
-                });
-            }
-        }
-    }
-
-    // utils conversions
-    private static Integer toInt(Object o){ return o==null?null:(o instanceof Number n? n.intValue(): Integer.parseInt(o.toString())); }
-    private static Long toLong(Object o){ return o==null?null:(o instanceof Number n? n.longValue(): Long.parseLong(o.toString())); }
-    private static Double toDouble(Object o){ return o==null?null:(o instanceof Number n? n.doubleValue(): Double.parseDouble(o.toString())); }
-    private static Boolean toBool(Object o){ return o==null?null:(o instanceof Boolean b? b: Boolean.parseBoolean(o.toString())); }
-
-    // IMPORTANT: SQLException uniquement (compatible PreparedStatementCreator)
-    private static void setInt(PreparedStatement ps, int idx, Integer v) throws SQLException {
-        if (v == null) ps.setNull(idx, Types.INTEGER);
-        else ps.setInt(idx, v);
-    }
-    private static void setLong(PreparedStatement ps, int idx, Long v) throws SQLException {
-        if (v == null) ps.setNull(idx, Types.BIGINT);
-        else ps.setLong(idx, v);
-    }
-
-    private static Map<String,Object> stripParticipantKnown(Map<String,Object> p) {
-        Set<String> known = Set.of("participantId","puuid","teamId","championId","championName",
-                "riotIdGameName","riotIdTagline","individualPosition","lane","role",
-                "summoner1Id","summoner2Id","item0","item1","item2","item3","item4","item5","item6",
-                "kills","deaths","assists","totalDamageDealtToChampions","totalDamageTaken",
-                "damageSelfMitigated","goldEarned","visionScore","wardsPlaced","wardsKilled",
-                "detectorWardsPlaced","champLevel","totalMinionsKilled","neutralMinionsKilled",
-                "timeCCingOthers","win","perks");
-        Map<String,Object> copy = new HashMap<>();
-        for (var e : p.entrySet()) if (!known.contains(e.getKey())) copy.put(e.getKey(), e.getValue());
-        return copy;
-    }
-
-    private static Map<String,Object> stripEventKnown(Map<String,Object> ev) {
-        Set<String> known = Set.of("timestamp","type","participantId","killerId","victimId","teamId",
-                "assistingParticipantIds","position","itemId","afterId","beforeId","skillSlot",
-                "levelUpType","wardType","buildingType","towerType","monsterType","monsterSubType",
-                "bounty","goldGain");
-        Map<String,Object> copy = new HashMap<>();
-        for (var e : ev.entrySet()) if (!known.contains(e.getKey())) copy.put(e.getKey(), e.getValue());
-        return copy;
+    /** Le match et sa timeline sont parsés en streaming puis écrits dans une transaction. */
+    private void persist(byte[] match, byte[] timeline) throws Exception {
+        MatchRows rows = MatchParser.parseMatch(match, cfg.getRiot().getRouter());
+        MatchParser.parseTimeline(rows, timeline);
+        store.save(rows);
+        stats.invalidate(rows);
     }
 }
@@ -0,0 +1,135 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.JobStore;
+import com.example.apilol.db.JobStore.Job;
+import com.example.apilol.db.WatermarkStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker de la file lol.ingest_job. Un job PLAYER liste les nouveaux matchs du joueur et
+ * les enfile en jobs MATCH ; un job MATCH stocke un match. Plusieurs instances (et
+ * plusieurs threads par instance) se partagent la file ; un job interrompu est repris à
+ * l'expiration de son bail, et rejouer un match est idempotent.
+ */
+@Service
+public class JobWorker {
+    private static final Duration IDLE = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final JobStore jobs;
+    private final IngestionService ingestion;
+    private final SeenMatches seen;
+    private final WatermarkStore watermarks;
+    private final AppProperties cfg;
+    /** pid@hôte, pour les logs et en préfixe des jetons de bail (un jeton aléatoire par réservation) */
+    private final String id = ManagementFactory.getRuntimeMXBean().getName();
+    /** prolonge les baux des jobs en cours tant qu'ils tournent */
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("job-heartbeat").factory());
+    private volatile boolean running = true;
+
+    public JobWorker(JobStore jobs, IngestionService ingestion, SeenMatches seen, WatermarkStore watermarks,
+                     AppProperties cfg) {
+        this.jobs = jobs;
+        this.ingestion = ingestion;
+        this.seen = seen;
+        this.watermarks = watermarks;
+        this.cfg = cfg;
+    }
+
+    /** Riot ID "gameName#tagLine" ou puuid. */
+    public boolean enqueuePlayer(String player) {
+        return jobs.enqueuePlayer(player.trim(), null);
+    }
+
+    /** Bloque jusqu'à l'arrêt de l'application. */
+    public void run() throws InterruptedException {
+        int n = Math.max(1, cfg.getJobs().getWorkers());
+        System.out.printf("→ Worker %s : %d job(s) en parallèle%n", id, n);
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) exec.submit(() -> { loop(); return null; });
+        }
+    }
+
+    @PreDestroy
+    public void stop() { running = false; } // heartbeat : démon, suit les jobs en cours jusqu'au bout
+
+    private void loop() throws InterruptedException {
+        while (running) {
+            List<Job> claimed;
+            try {
+                claimed = jobs.claim(id, cfg.getJobs().getLease(), 1, cfg.getJobs().getMaxAttempts());
+            } catch (RuntimeException e) {
+                System.err.printf("   file indisponible : %s%n", e.getMessage());
+                Thread.sleep(IDLE.multipliedBy(5));
+                continue;
+            }
+            if (claimed.isEmpty()) { Thread.sleep(IDLE); continue; }
+            for (Job job : claimed) execute(job);
+        }
+    }
+
+    private void execute(Job job) {
+        Duration lease = cfg.getJobs().getLease();
+        long period = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> beat = heartbeat.scheduleAtFixedRate(() -> {
+            try {
+                if (!jobs.extend(job, lease))
+                    System.err.printf("   bail perdu : %s %s%n", job.kind(), job.payload());
+            } catch (RuntimeException e) {
+                System.err.printf("   bail non prolongé (%s %s) : %s%n", job.kind(), job.payload(), e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        try {
+            switch (job.kind()) {
+                case PLAYER -> player(job);
+                case MATCH -> {
+                    if (!ingestion.ingestMatch(job.payload())) System.out.printf("   %s introuvable (404)%n", job.payload());
+                    seen.addAll(List.of(job.payload()));
+                }
+            }
+            jobs.done(job);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            // corps illisible : réessayer ne changera rien
+            boolean dead = e instanceof JsonProcessingException || job.attempts() >= cfg.getJobs().getMaxAttempts();
+            jobs.failed(job, error, dead ? null : backoff(job.attempts()));
+            System.out.printf("   ✖ %s %s (essai %d%s) : %s%n", job.kind(), job.payload(), job.attempts(),
+                    dead ? ", lettre morte" : "", error);
+        } finally {
+            beat.cancel(false);
+        }
+    }
+
+    private void player(Job job) throws Exception {
+        String p = job.payload();
+        int hash = p.lastIndexOf('#');
+        String puuid = hash > 0 ? ingestion.resolvePuuid(p.substring(0, hash), p.substring(hash + 1)) : p;
+        String router = job.router() != null ? job.router() : ingestion.routerOf(puuid);
+        List<String> ids = ingestion.candidateMatchIds(router, puuid, cfg.getTarget().getCount());
+        int added = jobs.enqueueMatches(seen.unknown(ids));
+        // n'avance que jusqu'aux matchs déjà en base : les autres sont dans la file
+        watermarks.advance(puuid, ids);
+        System.out.printf("   %s : %d match(s) enfilé(s)%n", p, added);
+    }
+
+    /** backoff × 2^(essai-1), plafonné, ±20 % pour désynchroniser les workers */
+    private Duration backoff(int attempt) {
+        long base = cfg.getJobs().getBackoff().toMillis() << Math.min(20, Math.max(0, attempt - 1));
+        long capped = Math.min(base, MAX_BACKOFF.toMillis());
+        return Duration.ofMillis((long) (capped * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+    }
+}
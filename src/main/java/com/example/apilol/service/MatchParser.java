@@ -0,0 +1,383 @@
+package com.example.apilol.service;
+
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.riot.Region;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+
+import static com.example.apilol.db.Db.jsonb;
+
+/**
+ * Extraction en streaming (Jackson {@link JsonParser}) des payloads Match-V5 / Timeline-V5
+ * vers des {@link MatchRows}, sans arbre {@code Map<String,Object>} intermédiaire.
+ * <p>
+ * Le corps brut du match part tel quel dans {@code lol.match.raw} ; seuls les restes
+ * ({@code perks}, {@code stats}, {@code damage_stats}, {@code other}) sont recopiés token par
+ * token. Les sous-arbres non utilisés (championStats, metadata.participants…) sont sautés.
+ */
+public final class MatchParser {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private enum Kind { INT, LONG, DOUBLE, BOOL, STRING }
+    private record Col(int index, Kind kind) {}
+
+    /** champ participant → colonne de {@link com.example.apilol.db.Table#PARTICIPANT} ; le reste va dans stats */
+    static final Map<String, Col> PARTICIPANT_COLS = cols(
+            "participantId", 1, Kind.INT, "puuid", 2, Kind.STRING, "teamId", 3, Kind.INT,
+            "championId", 4, Kind.INT, "championName", 5, Kind.STRING,
+            "riotIdGameName", 6, Kind.STRING, "riotIdTagline", 7, Kind.STRING,
+            "individualPosition", 8, Kind.STRING, "lane", 9, Kind.STRING, "role", 10, Kind.STRING,
+            "summoner1Id", 11, Kind.INT, "summoner2Id", 12, Kind.INT,
+            "item0", 13, Kind.INT, "item1", 14, Kind.INT, "item2", 15, Kind.INT, "item3", 16, Kind.INT,
+            "item4", 17, Kind.INT, "item5", 18, Kind.INT, "item6", 19, Kind.INT,
+            "kills", 20, Kind.INT, "deaths", 21, Kind.INT, "assists", 22, Kind.INT,
+            "totalDamageDealtToChampions", 23, Kind.INT, "totalDamageTaken", 24, Kind.INT,
+            "damageSelfMitigated", 25, Kind.INT, "goldEarned", 26, Kind.INT,
+            "visionScore", 27, Kind.DOUBLE, "wardsPlaced", 28, Kind.INT, "wardsKilled", 29, Kind.INT,
+            "detectorWardsPlaced", 30, Kind.INT, "champLevel", 31, Kind.INT,
+            "totalMinionsKilled", 32, Kind.INT, "neutralMinionsKilled", 33, Kind.INT,
+            "timeCCingOthers", 34, Kind.INT, "win", 35, Kind.BOOL);
+    private static final int PARTICIPANT_PERKS = 36, PARTICIPANT_STATS = 37, PARTICIPANT_WIDTH = 38;
+
+    /** champ event → colonne de {@link com.example.apilol.db.Table#TIMELINE_EVENT} ; le reste va dans other */
+    static final Map<String, Col> EVENT_COLS = cols(
+            "timestamp", 1, Kind.LONG, "type", 2, Kind.STRING, "participantId", 3, Kind.INT,
+            "creatorId", 3, Kind.INT, // WARD_PLACED n'a pas de participantId
+            "killerId", 4, Kind.INT, "victimId", 5, Kind.INT, "teamId", 6, Kind.INT,
+            "itemId", 10, Kind.INT, "afterId", 11, Kind.INT, "beforeId", 12, Kind.INT,
+            "skillSlot", 13, Kind.INT, "levelUpType", 14, Kind.STRING, "wardType", 15, Kind.STRING,
+            "buildingType", 16, Kind.STRING, "towerType", 17, Kind.STRING,
+            "monsterType", 18, Kind.STRING, "monsterSubType", 19, Kind.STRING,
+            "bounty", 20, Kind.INT, "goldGain", 21, Kind.INT);
+    private static final int EVENT_ASSISTS = 7, EVENT_X = 8, EVENT_Y = 9, EVENT_OTHER = 22, EVENT_CREATED = 23, EVENT_WIDTH = 24;
+
+    /** champ participantFrame → colonne de {@link com.example.apilol.db.Table#PARTICIPANT_FRAME} */
+    static final Map<String, Col> FRAME_COLS = cols(
+            "totalGold", 4, Kind.INT, "currentGold", 5, Kind.INT, "xp", 6, Kind.INT, "level", 7, Kind.INT,
+            "minionsKilled", 8, Kind.INT, "jungleMinionsKilled", 9, Kind.INT);
+    private static final int FRAME_X = 10, FRAME_Y = 11, FRAME_DAMAGE = 12, FRAME_CREATED = 13, FRAME_WIDTH = 14;
+
+    private MatchParser() {}
+
+    /**
+     * @param body          corps brut de /lol/match/v5/matches/{id}, stocké tel quel en jsonb
+     * @param defaultRouter routeur inscrit dans lol.match.region_router si ni l'id ni platformId ne le donnent
+     */
+    public static MatchRows parseMatch(byte[] body, String defaultRouter) throws IOException {
+        String mid = null, dataVersion = null, gameVersion = null, platformId = null, tournamentCode = null;
+        Integer queueId = null, gameDuration = null, mapId = null;
+        Long creation = null, start = null, end = null;
+        List<Object[]> teams = new ArrayList<>(2);
+        List<Object[]> parts = new ArrayList<>(10);
+
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("match : objet JSON attendu");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                p.nextToken();
+                if (f.equals("metadata") && isObject(p)) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String g = p.currentName();
+                        p.nextToken();
+                        switch (g) {
+                            case "matchId" -> mid = str(p);
+                            case "dataVersion" -> dataVersion = str(p);
+                            default -> p.skipChildren();
+                        }
+                    }
+                } else if (f.equals("info") && isObject(p)) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String g = p.currentName();
+                        p.nextToken();
+                        switch (g) {
+                            case "gameVersion" -> gameVersion = str(p);
+                            case "queueId" -> queueId = toInt(p);
+                            case "gameCreation" -> creation = toLong(p);
+                            case "gameStartTimestamp" -> start = toLong(p);
+                            case "gameEndTimestamp" -> end = toLong(p);
+                            case "gameDuration" -> gameDuration = toInt(p);
+                            case "mapId" -> mapId = toInt(p);
+                            case "platformId" -> platformId = str(p);
+                            case "tournamentCode" -> tournamentCode = str(p);
+                            case "teams" -> { if (isArray(p)) while (p.nextToken() == JsonToken.START_OBJECT) teams.add(team(p)); }
+                            case "participants" -> { if (isArray(p)) while (p.nextToken() == JsonToken.START_OBJECT) parts.add(participant(p)); }
+                            default -> p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+
+        String patch = (gameVersion != null && gameVersion.contains("."))
+                ? gameVersion.split("\\.")[0] + "." + gameVersion.split("\\.")[1] : null;
+
+        String router = Region.ofMatch(mid, Region.ofPlatform(platformId, defaultRouter));
+
+        MatchRows rows = new MatchRows(mid);
+        rows.match = new Object[]{
+                mid, dataVersion, gameVersion, patch, queueId, creation, start, end,
+                gameDuration, mapId, platformId, tournamentCode, router,
+                body // octets UTF-8 liés tels quels, convertis en jsonb par PostgreSQL (MatchStore)
+        };
+        for (Object[] t : teams) { t[0] = mid; rows.teams.add(t); }
+        for (Object[] r : parts) { r[0] = mid; rows.participants.add(r); }
+        return rows;
+    }
+
+    /** Ajoute frames et events de /timeline à {@code rows} ; {@code body} null = pas de timeline. */
+    public static void parseTimeline(MatchRows rows, byte[] body) throws IOException {
+        if (body == null) return;
+        rows.timelineRaw = body;
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("timeline : objet JSON attendu");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                p.nextToken();
+                if (!f.equals("info") || !isObject(p)) { p.skipChildren(); continue; }
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String g = p.currentName();
+                    p.nextToken();
+                    if (!g.equals("frames") || !isArray(p)) { p.skipChildren(); continue; }
+                    int idx = 0;
+                    while (p.nextToken() == JsonToken.START_OBJECT) frame(p, rows, idx++);
+                }
+            }
+        }
+    }
+
+    private static void frame(JsonParser p, MatchRows rows, int idx) throws IOException {
+        // "timestamp" arrive en général après participantFrames : on complète ts_ms à la fin
+        int firstFrame = rows.frames.size();
+        long created = rows.gameCreationMs();
+        Long ts = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            p.nextToken();
+            switch (f) {
+                case "timestamp" -> ts = toLong(p);
+                case "participantFrames" -> {
+                    if (!isObject(p)) { p.skipChildren(); break; }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        int pid = Integer.parseInt(p.currentName());
+                        p.nextToken();
+                        rows.frames.add(participantFrame(p, rows.matchId, idx, pid));
+                    }
+                }
+                case "events" -> {
+                    if (!isArray(p)) { p.skipChildren(); break; }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        Object[] ev = event(p, rows.matchId);
+                        ev[EVENT_CREATED] = created;
+                        rows.events.add(ev);
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        for (int i = firstFrame; i < rows.frames.size(); i++) {
+            Object[] r = rows.frames.get(i);
+            r[2] = ts;
+            r[FRAME_CREATED] = created; // clé de partition
+        }
+    }
+
+    private static Object[] participantFrame(JsonParser p, String mid, int idx, int pid) throws IOException {
+        Object[] r = new Object[FRAME_WIDTH];
+        r[0] = mid; r[1] = idx; r[3] = pid;
+        r[FRAME_DAMAGE] = jsonb("null");
+        if (!isObject(p)) { p.skipChildren(); return r; }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            p.nextToken();
+            Col c = FRAME_COLS.get(f);
+            if (c != null) r[c.index()] = value(p, c.kind());
+            else if (f.equals("position")) position(p, r, FRAME_X, FRAME_Y);
+            else if (f.equals("damageStats")) r[FRAME_DAMAGE] = jsonb(copy(p));
+            else p.skipChildren();
+        }
+        return r;
+    }
+
+    private static Object[] event(JsonParser p, String mid) throws IOException {
+        Object[] r = new Object[EVENT_WIDTH];
+        r[0] = mid;
+        StringWriter other = new StringWriter();
+        try (JsonGenerator g = JSON.createGenerator(other)) {
+            g.writeStartObject();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                p.nextToken();
+                Col c = EVENT_COLS.get(f);
+                if (c != null) r[c.index()] = value(p, c.kind());
+                else if (f.equals("position")) position(p, r, EVENT_X, EVENT_Y);
+                else if (f.equals("assistingParticipantIds")) r[EVENT_ASSISTS] = intArray(p);
+                else { g.writeFieldName(f); g.copyCurrentStructure(p); }
+            }
+            g.writeEndObject();
+        }
+        r[EVENT_OTHER] = jsonb(other.toString());
+        return r;
+    }
+
+    private static Object[] participant(JsonParser p) throws IOException {
+        Object[] r = new Object[PARTICIPANT_WIDTH];
+        r[PARTICIPANT_PERKS] = jsonb("null");
+        StringWriter stats = new StringWriter();
+        try (JsonGenerator g = JSON.createGenerator(stats)) {
+            g.writeStartObject();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                p.nextToken();
+                Col c = PARTICIPANT_COLS.get(f);
+                if (c != null) r[c.index()] = value(p, c.kind());
+                else if (f.equals("perks")) r[PARTICIPANT_PERKS] = jsonb(copy(p));
+                else { g.writeFieldName(f); g.copyCurrentStructure(p); }
+            }
+            g.writeEndObject();
+        }
+        r[PARTICIPANT_STATS] = jsonb(stats.toString());
+        return r;
+    }
+
+    private static Object[] team(JsonParser p) throws IOException {
+        Object[] r = new Object[13];
+        int ban = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            p.nextToken();
+            switch (f) {
+                case "teamId" -> r[1] = toInt(p);
+                case "win" -> r[2] = toBool(p);
+                case "bans" -> {
+                    if (!isArray(p)) { p.skipChildren(); break; }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        Integer champ = null;
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String g = p.currentName();
+                            p.nextToken();
+                            if (g.equals("championId")) champ = toInt(p); else p.skipChildren();
+                        }
+                        if (ban < 5) r[8 + ban] = champ;
+                        ban++;
+                    }
+                }
+                case "objectives" -> {
+                    if (!isObject(p)) { p.skipChildren(); break; }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        int col = switch (p.currentName()) {
+                            case "baron" -> 3;
+                            case "dragon" -> 4;
+                            case "riftHerald" -> 5;
+                            case "inhibitor" -> 6;
+                            case "tower" -> 7;
+                            default -> -1;
+                        };
+                        p.nextToken();
+                        if (col < 0 || !isObject(p)) { p.skipChildren(); continue; }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String g = p.currentName();
+                            p.nextToken();
+                            if (g.equals("kills")) r[col] = toInt(p); else p.skipChildren();
+                        }
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return r;
+    }
+
+    private static void position(JsonParser p, Object[] r, int xCol, int yCol) throws IOException {
+        if (!isObject(p)) { p.skipChildren(); return; }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            p.nextToken();
+            switch (f) {
+                case "x" -> r[xCol] = toInt(p);
+                case "y" -> r[yCol] = toInt(p);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    /** Tableau vide ou absent → null, comme l'ancien code. */
+    private static Integer[] intArray(JsonParser p) throws IOException {
+        if (!isArray(p)) { p.skipChildren(); return null; }
+        List<Integer> l = new ArrayList<>(4);
+        while (p.nextToken() != JsonToken.END_ARRAY) l.add(toInt(p));
+        return l.isEmpty() ? null : l.toArray(Integer[]::new);
+    }
+
+    /** Recopie la valeur courante (objet, tableau ou scalaire) en texte JSON. */
+    private static String copy(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return "null";
+        StringWriter sw = new StringWriter();
+        try (JsonGenerator g = JSON.createGenerator(sw)) { g.copyCurrentStructure(p); }
+        return sw.toString();
+    }
+
+    private static Object value(JsonParser p, Kind kind) throws IOException {
+        return switch (kind) {
+            case INT -> toInt(p);
+            case LONG -> toLong(p);
+            case DOUBLE -> toDouble(p);
+            case BOOL -> toBool(p);
+            case STRING -> str(p);
+        };
+    }
+
+    // conversions sur le token courant ; null JSON → null, objet/tableau → sauté puis null
+    /** nombre JSON, ou chaîne numérique ; null pour tout le reste (getValueAsInt rendrait 0) */
+    static Integer toInt(JsonParser p) throws IOException {
+        if (p.currentToken().isNumeric()) return p.getValueAsInt();
+        String s = text(p);
+        try { return s == null ? null : Integer.valueOf(s.trim()); } catch (NumberFormatException e) { return null; }
+    }
+
+    static Long toLong(JsonParser p) throws IOException {
+        if (p.currentToken().isNumeric()) return p.getValueAsLong();
+        String s = text(p);
+        try { return s == null ? null : Long.valueOf(s.trim()); } catch (NumberFormatException e) { return null; }
+    }
+
+    static Double toDouble(JsonParser p) throws IOException {
+        if (p.currentToken().isNumeric()) return p.getValueAsDouble();
+        String s = text(p);
+        try { return s == null ? null : Double.valueOf(s.trim()); } catch (NumberFormatException e) { return null; }
+    }
+
+    static Boolean toBool(JsonParser p) throws IOException { return scalar(p) ? p.getValueAsBoolean() : null; }
+    static String str(JsonParser p) throws IOException { return scalar(p) ? p.getValueAsString() : null; }
+
+    /** texte d'une chaîne JSON ; null pour tout autre token (sous-arbre sauté) */
+    private static String text(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_STRING) return p.getText();
+        if (t.isStructStart()) p.skipChildren();
+        return null;
+    }
+
+    private static boolean scalar(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return false;
+        if (t.isStructStart()) { p.skipChildren(); return false; }
+        return true;
+    }
+
+    private static boolean isObject(JsonParser p) { return p.currentToken() == JsonToken.START_OBJECT; }
+    private static boolean isArray(JsonParser p) { return p.currentToken() == JsonToken.START_ARRAY; }
+
+    private static Map<String, Col> cols(Object... spec) {
+        Map<String, Col> m = new HashMap<>();
+        for (int i = 0; i < spec.length; i += 3) m.put((String) spec[i], new Col((Integer) spec[i + 1], (Kind) spec[i + 2]));
+        return Map.copyOf(m);
+    }
+}
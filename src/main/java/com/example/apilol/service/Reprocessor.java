@@ -0,0 +1,136 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.Db;
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.db.MatchStore;
+import com.example.apilol.riot.ResponseCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mode reprocess : reconstruit team / participant / frames / events à partir des corps bruts
+ * déjà en base (lol.match.raw, lol.match_timeline), sans appel API — typiquement après un
+ * changement d'extraction dans {@link MatchParser}.
+ * <p>
+ * Trois étages reliés par des files bornées : un curseur serveur (fetchSize) lit les matchs,
+ * {@code parsers} threads parsent en parallèle, {@code writers} threads écrivent par lots via
+ * {@link MatchStore#rebuild}. Un match sans timeline stockée la reprend au cache disque s'il
+ * est activé, sinon il est sauté.
+ */
+@Service
+public class Reprocessor {
+    private static final MatchRows END = new MatchRows(null);
+
+    private final JdbcTemplate jdbc;
+    private final MatchStore store;
+    private final TransactionTemplate tx;
+    private final ResponseCache cache;
+    private final AppProperties cfg;
+
+    public Reprocessor(Db db, MatchStore store, TransactionTemplate tx, ResponseCache cache, AppProperties cfg) {
+        this.jdbc = db.jdbc();
+        this.store = store;
+        this.tx = tx;
+        this.cache = cache;
+        this.cfg = cfg;
+    }
+
+    /** @return nombre de matchs reconstruits */
+    public long run() throws Exception {
+        var c = cfg.getReprocess();
+        int parsers = c.getParsers() > 0 ? c.getParsers() : Runtime.getRuntime().availableProcessors();
+        int writers = Math.max(1, c.getWriters());
+        int batchSize = Math.max(1, c.getBatchSize());
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT m.match_id, m.raw, t.raw FROM lol.match m
+            LEFT JOIN lol.match_timeline t ON t.match_id = m.match_id
+            WHERE m.raw IS NOT NULL""");
+        List<Object> args = new ArrayList<>();
+        if (c.getPatch() != null && !c.getPatch().isBlank()) { sql.append(" AND m.patch = ?"); args.add(c.getPatch()); }
+        if (c.getQueue() != null) { sql.append(" AND m.queue_id = ?"); args.add(c.getQueue()); }
+
+        // un lot d'avance au plus : chaque writer accumule déjà le sien, et un match parsé pèse lourd
+        BlockingQueue<MatchRows> parsed = new ArrayBlockingQueue<>(batchSize);
+        Semaphore inflight = new Semaphore(parsers * 4); // corps lus mais pas encore parsés
+        AtomicLong read = new AtomicLong(), skipped = new AtomicLong(), rebuilt = new AtomicLong();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long t0 = System.nanoTime();
+
+        ExecutorService parse = Executors.newFixedThreadPool(parsers);
+        ExecutorService write = Executors.newFixedThreadPool(writers);
+        for (int i = 0; i < writers; i++)
+            write.submit(() -> writeLoop(parsed, batchSize, rebuilt, failure, t0));
+        try {
+            // un curseur PostgreSQL n'existe que dans une transaction : sinon fetchSize est ignoré
+            JdbcTemplate cursor = new JdbcTemplate(jdbc.getDataSource());
+            cursor.setFetchSize(c.getFetchSize());
+            tx.executeWithoutResult(status -> cursor.query(sql.toString(), rs -> {
+                if (failure.get() != null) throw new IllegalStateException("écriture en échec", failure.get());
+                String mid = rs.getString(1);
+                byte[] match = rs.getBytes(2), timeline = rs.getBytes(3);
+                read.incrementAndGet();
+                inflight.acquireUninterruptibly();
+                parse.submit(() -> {
+                    try {
+                        byte[] tl = timeline != null ? timeline : cache.get(ResponseCache.key("timeline", mid));
+                        if (tl == null) { skipped.incrementAndGet(); return; }
+                        MatchRows rows = MatchParser.parseMatch(match, cfg.getRiot().getRouter());
+                        MatchParser.parseTimeline(rows, tl);
+                        rows.dropRaw(); // rebuild ne réécrit pas les corps : inutile de les garder en file
+                        parsed.put(rows);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        skipped.incrementAndGet();
+                        System.err.printf("   %s illisible : %s%n", mid, e.getMessage());
+                    } finally {
+                        inflight.release();
+                    }
+                });
+            }, args.toArray()));
+        } finally {
+            parse.shutdown();
+            parse.awaitTermination(1, TimeUnit.HOURS);
+            for (int i = 0; i < writers; i++) parsed.put(END);
+            write.shutdown();
+            write.awaitTermination(1, TimeUnit.HOURS);
+        }
+        if (failure.get() != null) throw failure.get();
+        System.out.printf("   %d lus, %d reconstruits, %d sautés (sans timeline ou illisibles)%n",
+                read.get(), rebuilt.get(), skipped.get());
+        return rebuilt.get();
+    }
+
+    private Void writeLoop(BlockingQueue<MatchRows> parsed, int batchSize, AtomicLong rebuilt,
+                           AtomicReference<Exception> failure, long t0) throws InterruptedException {
+        List<MatchRows> batch = new ArrayList<>(batchSize);
+        for (;;) {
+            MatchRows r = parsed.take();
+            if (r != END) batch.add(r);
+            if (r != END && batch.size() < batchSize) continue;
+            // après un échec on vide la file sans écrire, pour débloquer les parsers
+            if (failure.get() == null && !batch.isEmpty()) {
+                try {
+                    store.rebuild(batch);
+                    long n = rebuilt.addAndGet(batch.size());
+                    if (n / 1000 != (n - batch.size()) / 1000)
+                        System.out.printf("   %d matchs (%.0f/s)%n", n, n / ((System.nanoTime() - t0) / 1e9));
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+            batch.clear();
+            if (r == END) break;
+        }
+        return null;
+    }
+}
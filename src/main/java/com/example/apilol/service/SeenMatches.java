@@ -0,0 +1,74 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.Db;
+import com.example.apilol.db.MatchStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matchs déjà stockés : filtre de Bloom en mémoire, confirmé par lol.match.
+ * Un "non" du filtre est certain et évite la requête ; seuls les "peut-être" vont en base.
+ * Sans {@link #load()}, tout passe par la base (ingestion ponctuelle).
+ * <p>
+ * Les matchs en cours d'ingestion sont réservés en mémoire ({@link #claim}) : deux workers du
+ * crawler qui listent le même match (joueurs de la même partie) ne le récupèrent qu'une fois.
+ */
+@Component
+public class SeenMatches {
+    private final JdbcTemplate jdbc;
+    private final MatchStore store;
+    private final TransactionTemplate tx;
+    private final AppProperties cfg;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter bloom;
+
+    public SeenMatches(Db db, MatchStore store, TransactionTemplate tx, AppProperties cfg) {
+        this.jdbc = db.jdbc();
+        this.store = store;
+        this.tx = tx;
+        this.cfg = cfg;
+    }
+
+    /** Charge tous les match_id en streaming (curseur serveur, d'où la transaction). */
+    public synchronized void load() {
+        if (bloom != null) return;
+        BloomFilter b = new BloomFilter(cfg.getCrawl().getExpectedMatches(), 0.01);
+        tx.executeWithoutResult(status -> jdbc.query(con -> {
+            var ps = con.prepareStatement("SELECT match_id FROM lol.match");
+            ps.setFetchSize(10_000);
+            return ps;
+        }, rs -> { b.add(rs.getString(1)); }));
+        bloom = b;
+    }
+
+    /** Parmi {@code ids}, ceux absents de lol.match (ordre conservé). */
+    public List<String> unknown(List<String> ids) {
+        BloomFilter b = bloom;
+        List<String> maybe = b == null ? ids : ids.stream().filter(b::mightContain).toList();
+        Set<String> known = store.existing(maybe);
+        return ids.stream().filter(id -> !known.contains(id)).toList();
+    }
+
+    /**
+     * Comme {@link #unknown}, mais réserve les ids retournés : un autre appel ne les rendra
+     * plus avant {@link #release}. À libérer une fois le match stocké (ou en échec).
+     */
+    public List<String> claim(List<String> ids) {
+        return unknown(ids).stream().filter(inFlight::add).toList();
+    }
+
+    public void release(List<String> ids) {
+        ids.forEach(inFlight::remove);
+    }
+
+    public void addAll(List<String> ids) {
+        BloomFilter b = bloom;
+        if (b != null) ids.forEach(b::add);
+    }
+}
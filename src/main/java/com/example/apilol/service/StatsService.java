@@ -0,0 +1,58 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.db.StatsStore;
+import com.example.apilol.db.StatsStore.GoldCurve;
+import com.example.apilol.db.StatsStore.Line;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Lecture des agrégats avec un cache LRU/TTL en mémoire. Les clés touchées par un match
+ * (ses 10 joueurs, ses champions sur son patch) sont invalidées dès qu'il est persisté.
+ */
+@Service
+public class StatsService {
+    private final StatsStore store;
+    private final TtlLruCache<String, Object> cache;
+
+    public StatsService(StatsStore store, AppProperties cfg) {
+        this.store = store;
+        this.cache = new TtlLruCache<>(cfg.getStats().getCacheSize(), cfg.getStats().getCacheTtl());
+    }
+
+    public List<Line> player(String puuid) {
+        return cached("player:" + puuid, () -> store.player(puuid));
+    }
+
+    public List<GoldCurve> playerGold(String puuid) {
+        return cached("player-gold:" + puuid, () -> store.playerGold(puuid));
+    }
+
+    public List<Line> champion(int championId, String patch) {
+        return cached("champion:" + championId + ":" + patch, () -> store.champion(championId, patch));
+    }
+
+    public List<GoldCurve> championGold(int championId, String patch) {
+        return cached("champion-gold:" + championId + ":" + patch, () -> store.championGold(championId, patch));
+    }
+
+    /** À appeler après {@code MatchStore.save}. */
+    public void invalidate(MatchRows rows) {
+        String patch = Objects.toString(rows.match[3], "");
+        List<String> keys = new ArrayList<>(rows.participants.size() * 4);
+        for (Object[] p : rows.participants) {
+            if (p[2] != null) { keys.add("player:" + p[2]); keys.add("player-gold:" + p[2]); }
+            if (p[4] != null) { keys.add("champion:" + p[4] + ":" + patch); keys.add("champion-gold:" + p[4] + ":" + patch); }
+        }
+        cache.invalidate(keys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<T> loader) {
+        return (T) cache.get(key, (Supplier<Object>) loader);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.apilol.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache LRU borné avec durée de vie par entrée. Le chargement se fait hors verrou ;
+ * un résultat chargé pendant une invalidation n'est pas mis en cache (il peut être périmé).
+ */
+final class TtlLruCache<K, V> {
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final LinkedHashMap<K, Entry<V>> map;
+    private final long ttlNanos;
+    /** incrémenté à chaque invalidation */
+    private long generation;
+
+    TtlLruCache(int maxSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) { return size() > maxSize; }
+        };
+    }
+
+    V get(K key, Supplier<V> loader) {
+        long gen;
+        synchronized (this) {
+            Entry<V> e = map.get(key);
+            if (e != null && e.expiresAt() - System.nanoTime() > 0) return e.value();
+            gen = generation;
+        }
+        V v = loader.get();
+        synchronized (this) {
+            if (gen == generation) map.put(key, new Entry<>(v, System.nanoTime() + ttlNanos));
+        }
+        return v;
+    }
+
+    synchronized void invalidate(Collection<K> keys) {
+        generation++;
+        for (K k : keys) map.remove(k);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.apilol.web;
+
+import com.example.apilol.db.HeatmapStore.Filter;
+import com.example.apilol.db.HeatmapStore.Kind;
+import com.example.apilol.service.HeatmapService;
+import com.example.apilol.service.HeatmapService.Heatmap;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Heatmaps de wards / positions. Exemple :
+ * {@code GET /api/heatmaps/ward?patch=14.16&queue=420&team=100&wardType=CONTROL_WARD&fromMinute=0&toMinute=15}
+ */
+@RestController
+@RequestMapping("/api/heatmaps")
+public class HeatmapController {
+    private final HeatmapService heatmaps;
+    public HeatmapController(HeatmapService heatmaps) { this.heatmaps = heatmaps; }
+
+    @GetMapping("/{kind}")
+    public Mono<Heatmap> heatmap(@PathVariable String kind,
+                                 @RequestParam(required = false) List<String> patch,
+                                 @RequestParam(required = false) Integer queue,
+                                 @RequestParam(required = false) Integer team,
+                                 @RequestParam(required = false) String wardType,
+                                 @RequestParam(required = false) Integer fromMinute,
+                                 @RequestParam(required = false) Integer toMinute) {
+        Kind k;
+        try { k = Kind.valueOf(kind.toUpperCase()); }
+        catch (IllegalArgumentException e) { throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "kind : ward | position"); }
+        Filter f = new Filter(k, patch, queue, team, wardType, fromMinute, toMinute);
+        return Mono.fromCallable(() -> heatmaps.get(f)).subscribeOn(Schedulers.boundedElastic());
+    }
+}
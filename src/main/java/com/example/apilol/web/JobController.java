@@ -0,0 +1,36 @@
+package com.example.apilol.web;
+
+import com.example.apilol.db.JobStore;
+import com.example.apilol.service.JobWorker;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * Alimentation de la file d'ingestion.
+ * {@code POST /api/jobs/players?player=Faker%23KR1} (Riot ID ou puuid), {@code GET /api/jobs} pour l'état.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private final JobWorker worker;
+    private final JobStore jobs;
+    public JobController(JobWorker worker, JobStore jobs) { this.worker = worker; this.jobs = jobs; }
+
+    @PostMapping("/players")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<Map<String, Object>> enqueue(@RequestParam String player) {
+        if (player.isBlank()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "player vide");
+        return Mono.fromCallable(() -> Map.<String, Object>of("player", player, "queued", worker.enqueuePlayer(player)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping
+    public Mono<Map<String, Long>> counts() {
+        return Mono.fromCallable(jobs::counts).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.apilol.web;
+
+import com.example.apilol.db.FrameSeries.Series;
+import com.example.apilol.db.SeriesStore;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/** Séries temporelles décodées d'un match (or, xp, niveau, CS, position, dégâts), une par participant. */
+@RestController
+@RequestMapping("/api/matches")
+public class MatchController {
+    private final SeriesStore series;
+    public MatchController(SeriesStore series) { this.series = series; }
+
+    @GetMapping("/{matchId}/series")
+    public Mono<List<Series>> series(@PathVariable String matchId) {
+        return Mono.fromCallable(() -> series.find(matchId)).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.apilol.web;
+
+import com.example.apilol.db.StatsStore.GoldCurve;
+import com.example.apilol.db.StatsStore.Line;
+import com.example.apilol.service.StatsService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * API de lecture des stats agrégées, une ligne par file (queue_id).
+ * JDBC est bloquant : les lectures partent sur boundedElastic, jamais sur la boucle Netty.
+ */
+@RestController
+@RequestMapping("/api")
+public class StatsController {
+    private final StatsService stats;
+    public StatsController(StatsService stats) { this.stats = stats; }
+
+    @GetMapping("/players/{puuid}/stats")
+    public Mono<List<Line>> player(@PathVariable String puuid) {
+        return blocking(() -> stats.player(puuid));
+    }
+
+    @GetMapping("/players/{puuid}/gold")
+    public Mono<List<GoldCurve>> playerGold(@PathVariable String puuid) {
+        return blocking(() -> stats.playerGold(puuid));
+    }
+
+    @GetMapping("/champions/{championId}/patches/{patch}/stats")
+    public Mono<List<Line>> champion(@PathVariable int championId, @PathVariable String patch) {
+        return blocking(() -> stats.champion(championId, patch));
+    }
+
+    @GetMapping("/champions/{championId}/patches/{patch}/gold")
+    public Mono<List<GoldCurve>> championGold(@PathVariable int championId, @PathVariable String patch) {
+        return blocking(() -> stats.championGold(championId, patch));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,9 @@
+-- Corps brut de /timeline, tel que reçu (le TOAST le compresse) : permet de reconstruire
+-- participant_frame / timeline_event / participant_series sans rappeler l'API (mode reprocess).
+-- bytea plutôt que jsonb : relu octet pour octet par le parser, sans conversion côté serveur.
+
+CREATE TABLE IF NOT EXISTS lol.match_timeline (
+    match_id   text PRIMARY KEY REFERENCES lol.match(match_id) ON DELETE CASCADE,
+    raw        bytea NOT NULL,
+    fetched_at timestamptz DEFAULT now()
+);
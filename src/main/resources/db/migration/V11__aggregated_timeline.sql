@@ -0,0 +1,9 @@
+-- La garde match_aggregated distingue désormais la partie timeline (courbes d'or, heatmaps) :
+-- un match ingéré d'abord sans timeline reçoit ces agrégats quand sa timeline arrive.
+
+ALTER TABLE lol.match_aggregated ADD COLUMN IF NOT EXISTS timeline_aggregated boolean NOT NULL DEFAULT false;
+
+-- le rattrapage V5 / les ingestions passées ont agrégé les frames présentes
+UPDATE lol.match_aggregated a SET timeline_aggregated = true
+WHERE EXISTS (SELECT 1 FROM lol.participant_frame f WHERE f.match_id = a.match_id)
+   OR EXISTS (SELECT 1 FROM lol.participant_series s WHERE s.match_id = a.match_id);
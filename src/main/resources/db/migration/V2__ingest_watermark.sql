@@ -0,0 +1,9 @@
+-- Ingestion incrémentale : dernier match connu par joueur
+-- newest_start_s sert de startTime (epoch secondes) pour /matches/by-puuid/{puuid}/ids
+
+CREATE TABLE IF NOT EXISTS lol.ingest_watermark (
+    puuid            text PRIMARY KEY,
+    newest_match_id  text,
+    newest_start_s   bigint,
+    updated_at       timestamptz DEFAULT now()
+);
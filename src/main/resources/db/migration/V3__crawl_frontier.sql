@@ -0,0 +1,15 @@
+-- Crawler : frontière persistante des joueurs à explorer (BFS par profondeur)
+
+CREATE TABLE IF NOT EXISTS lol.crawl_frontier (
+    puuid          text PRIMARY KEY,
+    depth          int  NOT NULL,                    -- 0 = joueur de départ
+    status         text NOT NULL DEFAULT 'PENDING',  -- PENDING | IN_PROGRESS | DONE | FAILED
+    enqueued_at    timestamptz DEFAULT now(),
+    visited_at     timestamptz,
+    new_matches    int,
+    attempts       int  NOT NULL DEFAULT 0,          -- échecs ; FAILED re-tenté au démarrage sous app.crawl.maxAttempts
+    last_error     text
+);
+
+CREATE INDEX IF NOT EXISTS idx_frontier_pending
+    ON lol.crawl_frontier (depth, enqueued_at) WHERE status = 'PENDING';
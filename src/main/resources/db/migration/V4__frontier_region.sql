@@ -0,0 +1,7 @@
+-- Multi-région : chaque joueur de la frontière est crawlé via le routeur de ses matchs
+
+ALTER TABLE lol.crawl_frontier ADD COLUMN IF NOT EXISTS region_router text;  -- NULL = app.riot.router
+
+DROP INDEX IF EXISTS lol.idx_frontier_pending;
+CREATE INDEX IF NOT EXISTS idx_frontier_pending
+    ON lol.crawl_frontier (region_router, depth, enqueued_at) WHERE status = 'PENDING';
@@ -0,0 +1,84 @@
+-- Agrégats de lecture maintenus à l'ingestion (API /api/players, /api/champions)
+-- Chaque match n'est agrégé qu'une fois : lol.match_aggregated sert de garde contre
+-- le double comptage lors d'une ré-ingestion.
+
+CREATE TABLE IF NOT EXISTS lol.match_aggregated (
+    match_id       text PRIMARY KEY REFERENCES lol.match(match_id) ON DELETE CASCADE,
+    aggregated_at  timestamptz DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS lol.player_stats (
+    puuid     text NOT NULL,
+    queue_id  int  NOT NULL,                -- 0 = inconnue
+    games     int  NOT NULL,
+    wins      int  NOT NULL,
+    kills     bigint NOT NULL,
+    deaths    bigint NOT NULL,
+    assists   bigint NOT NULL,
+    PRIMARY KEY (puuid, queue_id)
+);
+
+CREATE TABLE IF NOT EXISTS lol.champion_patch_stats (
+    champion_id  int  NOT NULL,
+    patch        text NOT NULL,             -- '' = inconnu
+    queue_id     int  NOT NULL,
+    games        int  NOT NULL,
+    wins         int  NOT NULL,
+    kills        bigint NOT NULL,
+    deaths       bigint NOT NULL,
+    assists      bigint NOT NULL,
+    PRIMARY KEY (champion_id, patch, queue_id)
+);
+
+-- courbes d'or : moyenne = gold_sum / samples par frame
+CREATE TABLE IF NOT EXISTS lol.player_gold_curve (
+    puuid        text NOT NULL,
+    queue_id     int  NOT NULL,
+    frame_index  int  NOT NULL,
+    samples      int  NOT NULL,
+    gold_sum     bigint NOT NULL,
+    PRIMARY KEY (puuid, queue_id, frame_index)
+);
+
+CREATE TABLE IF NOT EXISTS lol.champion_gold_curve (
+    champion_id  int  NOT NULL,
+    patch        text NOT NULL,
+    queue_id     int  NOT NULL,
+    frame_index  int  NOT NULL,
+    samples      int  NOT NULL,
+    gold_sum     bigint NOT NULL,
+    PRIMARY KEY (champion_id, patch, queue_id, frame_index)
+);
+
+-- rattrapage des matchs déjà en base
+INSERT INTO lol.player_stats
+SELECT p.puuid, COALESCE(m.queue_id, 0), count(*), count(*) FILTER (WHERE p.win),
+       COALESCE(sum(p.kills), 0), COALESCE(sum(p.deaths), 0), COALESCE(sum(p.assists), 0)
+FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id
+WHERE p.puuid IS NOT NULL
+GROUP BY 1, 2;
+
+INSERT INTO lol.champion_patch_stats
+SELECT p.champion_id, COALESCE(m.patch, ''), COALESCE(m.queue_id, 0), count(*), count(*) FILTER (WHERE p.win),
+       COALESCE(sum(p.kills), 0), COALESCE(sum(p.deaths), 0), COALESCE(sum(p.assists), 0)
+FROM lol.participant p JOIN lol.match m ON m.match_id = p.match_id
+WHERE p.champion_id IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO lol.player_gold_curve
+SELECT p.puuid, COALESCE(m.queue_id, 0), f.frame_index, count(*), sum(f.total_gold)
+FROM lol.participant_frame f
+         JOIN lol.participant p ON p.match_id = f.match_id AND p.participant_id = f.participant_id
+         JOIN lol.match m ON m.match_id = f.match_id
+WHERE p.puuid IS NOT NULL AND f.total_gold IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO lol.champion_gold_curve
+SELECT p.champion_id, COALESCE(m.patch, ''), COALESCE(m.queue_id, 0), f.frame_index, count(*), sum(f.total_gold)
+FROM lol.participant_frame f
+         JOIN lol.participant p ON p.match_id = f.match_id AND p.participant_id = f.participant_id
+         JOIN lol.match m ON m.match_id = f.match_id
+WHERE p.champion_id IS NOT NULL AND f.total_gold IS NOT NULL
+GROUP BY 1, 2, 3, 4;
+
+INSERT INTO lol.match_aggregated(match_id) SELECT match_id FROM lol.match;
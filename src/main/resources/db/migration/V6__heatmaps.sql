@@ -0,0 +1,45 @@
+-- Heatmaps pré-agrégées à l'ingestion : grilles 64×64 de comptes, une ligne par
+-- (type, patch, file, côté, type de ward, tranche de 5 min). Fusionnées à la lecture.
+-- Le match n'écrit pas les grilles : il insère ses comptes épars dans lol.heatmap_delta, en
+-- append-only (pas de verrou partagé entre matchs du même patch / file, pas de grille complète
+-- réécrite dans le WAL) ; HeatmapStore.rollup les fusionne périodiquement dans lol.heatmap.
+
+CREATE TABLE IF NOT EXISTS lol.heatmap (
+    kind         text NOT NULL,              -- 'WARD' | 'POSITION'
+    patch        text NOT NULL,              -- '' = inconnu
+    queue_id     int  NOT NULL,
+    team_id      int  NOT NULL,              -- 100 | 200
+    ward_type    text NOT NULL,              -- '' pour POSITION
+    time_bucket  int  NOT NULL,              -- minute / 5, plafonné
+    cells        int[] NOT NULL,             -- GRID*GRID comptes, ligne par ligne (y, puis x)
+    PRIMARY KEY (kind, patch, queue_id, team_id, ward_type, time_bucket)
+);
+
+-- Ajoute des comptes épars (indices 1-based, comptes) à une grille
+CREATE OR REPLACE FUNCTION lol.heatmap_add(cells int[], idx int[], cnt int[]) RETURNS int[]
+    LANGUAGE plpgsql IMMUTABLE AS $$
+BEGIN
+    FOR i IN 1 .. coalesce(array_length(idx, 1), 0) LOOP
+        cells[idx[i]] := cells[idx[i]] + cnt[i];
+    END LOOP;
+    RETURN cells;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS lol.heatmap_delta (
+    id           bigserial PRIMARY KEY,
+    kind         text NOT NULL,
+    patch        text NOT NULL,
+    queue_id     int  NOT NULL,
+    team_id      int  NOT NULL,
+    ward_type    text NOT NULL,
+    time_bucket  int  NOT NULL,
+    idx          int[] NOT NULL,             -- indices 1-based dans la grille
+    cnt          int[] NOT NULL
+);
+
+-- Somme terme à terme de deux grilles de même taille
+CREATE OR REPLACE FUNCTION lol.heatmap_sum(a int[], b int[]) RETURNS int[]
+    LANGUAGE sql IMMUTABLE AS $$
+    SELECT array_agg(x + y ORDER BY n) FROM unnest(a, b) WITH ORDINALITY AS t(x, y, n)
+$$;
@@ -0,0 +1,128 @@
+-- Partitionnement mensuel de timeline_event / participant_frame par date de création de la partie.
+-- Clé de partition : game_creation_ms (epoch ms, copie de lol.match.game_creation_ms), portée par chaque ligne.
+-- Les B-tree position / type d'event (coûteux à chaque insert) sont remplacés par un BRIN sur
+-- game_creation_ms (ordre physique d'insertion) et un index partiel sur les poses de ward.
+-- Pas de BRIN sur ts_ms : relatif au début de la partie, chaque bloc couvre toute la plage.
+-- Les partitions mensuelles sont créées à l'ingestion par PartitionManager.
+
+DROP VIEW IF EXISTS lol.v_ward_placements;
+DROP VIEW IF EXISTS lol.v_gold_timeseries;
+
+ALTER TABLE lol.timeline_event    RENAME TO timeline_event_old;
+ALTER TABLE lol.participant_frame RENAME TO participant_frame_old;
+
+CREATE TABLE lol.timeline_event (
+    event_id         bigserial,
+    match_id         text NOT NULL REFERENCES lol.match(match_id) ON DELETE CASCADE,
+    ts_ms            bigint NOT NULL,
+    event_type       text NOT NULL,
+    participant_id   int,
+    killer_id        int,
+    victim_id        int,
+    team_id          int,
+    assisting_ids    int[],
+    position_x       int,
+    position_y       int,
+    item_id          int,
+    after_id         int,
+    before_id        int,
+    skill_slot       int,
+    level_up_type    text,
+    ward_type        text,
+    building_type    text,
+    tower_type       text,
+    monster_type     text,
+    monster_sub_type text,
+    bounty           int,
+    gold_gain        int,
+    other            jsonb,
+    game_creation_ms bigint NOT NULL,
+    -- match_id en tête : sert aussi aux suppressions par match (ré-ingestion)
+    PRIMARY KEY (match_id, event_id, game_creation_ms)
+) PARTITION BY RANGE (game_creation_ms);
+
+CREATE TABLE lol.participant_frame (
+    match_id              text NOT NULL,
+    frame_index           int  NOT NULL,
+    ts_ms                 bigint NOT NULL,
+    participant_id        int NOT NULL,
+    total_gold            int,
+    current_gold          int,
+    xp                    int,
+    level                 int,
+    minions_killed        int,
+    jungle_minions_killed int,
+    position_x            int,
+    position_y            int,
+    damage_stats          jsonb,
+    game_creation_ms      bigint NOT NULL,
+    PRIMARY KEY (match_id, frame_index, participant_id, game_creation_ms),
+    FOREIGN KEY (match_id, participant_id)
+        REFERENCES lol.participant(match_id, participant_id) ON DELETE CASCADE
+) PARTITION BY RANGE (game_creation_ms);
+
+CREATE INDEX IF NOT EXISTS brin_event_created ON lol.timeline_event USING brin (game_creation_ms);
+CREATE INDEX IF NOT EXISTS brin_frame_created ON lol.participant_frame USING brin (game_creation_ms);
+-- v_ward_placements : quelques % des events, créé sur chaque partition
+CREATE INDEX IF NOT EXISTS idx_event_ward_placed ON lol.timeline_event (game_creation_ms)
+    WHERE event_type = 'WARD_PLACED';
+
+-- une partition par mois présent dans les données existantes
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN
+        SELECT DISTINCT date_trunc('month', to_timestamp(COALESCE(game_creation_ms, 0) / 1000.0) AT TIME ZONE 'UTC')::date
+        FROM lol.match
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS lol.%I PARTITION OF lol.timeline_event FOR VALUES FROM (%s) TO (%s)',
+                       'timeline_event_' || to_char(m, 'YYYY_MM'),
+                       (extract(epoch FROM m::timestamp) * 1000)::bigint,
+                       (extract(epoch FROM (m + interval '1 month')::timestamp) * 1000)::bigint);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS lol.%I PARTITION OF lol.participant_frame FOR VALUES FROM (%s) TO (%s)',
+                       'participant_frame_' || to_char(m, 'YYYY_MM'),
+                       (extract(epoch FROM m::timestamp) * 1000)::bigint,
+                       (extract(epoch FROM (m + interval '1 month')::timestamp) * 1000)::bigint);
+    END LOOP;
+END
+$$;
+
+INSERT INTO lol.timeline_event
+SELECT e.*, COALESCE(m.game_creation_ms, 0)
+FROM lol.timeline_event_old e JOIN lol.match m ON m.match_id = e.match_id;
+
+SELECT setval(pg_get_serial_sequence('lol.timeline_event', 'event_id'),
+              COALESCE((SELECT max(event_id) FROM lol.timeline_event), 0) + 1, false);
+
+INSERT INTO lol.participant_frame
+SELECT f.*, COALESCE(m.game_creation_ms, 0)
+FROM lol.participant_frame_old f JOIN lol.match m ON m.match_id = f.match_id;
+
+DROP TABLE lol.timeline_event_old;
+DROP TABLE lol.participant_frame_old;
+
+CREATE OR REPLACE VIEW lol.v_ward_placements AS
+SELECT
+    e.match_id,
+    p.puuid,
+    p.team_id,
+    e.ts_ms,
+    e.ward_type,
+    e.position_x AS x,
+    e.position_y AS y
+FROM lol.timeline_event e
+         LEFT JOIN lol.participant p
+                   ON p.match_id = e.match_id AND p.participant_id = e.participant_id
+WHERE e.event_type = 'WARD_PLACED';
+
+CREATE OR REPLACE VIEW lol.v_gold_timeseries AS
+SELECT
+    pf.match_id,
+    pa.puuid,
+    pf.frame_index,
+    pf.ts_ms,
+    pf.total_gold
+FROM lol.participant_frame pf
+         JOIN lol.participant pa
+              ON pa.match_id = pf.match_id AND pa.participant_id = pf.participant_id;
@@ -0,0 +1,65 @@
+-- Frames "packées" : une ligne par (match, participant) au lieu d'une par frame.
+-- Chaque métrique est un int[] encodé en deltas (1er élément absolu, puis écarts) ;
+-- damage concatène 12 séries (ordre de FrameSeries.DAMAGE_FIELDS), chacune encodée à part.
+-- Choisi à l'ingestion par app.ingest.frameStorage (rows | packed).
+-- Partitionnée par mois comme timeline_event / participant_frame (V7) : mêmes bornes sur
+-- game_creation_ms, partitions créées et archivées ensemble par PartitionManager.
+
+CREATE TABLE IF NOT EXISTS lol.participant_series (
+    match_id              text NOT NULL,
+    participant_id        int  NOT NULL,
+    frame_count           int  NOT NULL,
+    ts_ms                 int[] NOT NULL,
+    total_gold            int[] NOT NULL,
+    current_gold          int[] NOT NULL,
+    xp                    int[] NOT NULL,
+    level                 int[] NOT NULL,
+    minions_killed        int[] NOT NULL,
+    jungle_minions_killed int[] NOT NULL,
+    position_x            int[] NOT NULL,
+    position_y            int[] NOT NULL,
+    damage                int[] NOT NULL,
+    game_creation_ms      bigint NOT NULL,
+    PRIMARY KEY (match_id, participant_id, game_creation_ms),
+    FOREIGN KEY (match_id, participant_id)
+        REFERENCES lol.participant(match_id, participant_id) ON DELETE CASCADE
+) PARTITION BY RANGE (game_creation_ms);
+
+CREATE INDEX IF NOT EXISTS brin_series_created ON lol.participant_series USING brin (game_creation_ms);
+
+-- somme cumulée : inverse de l'encodage en deltas
+CREATE OR REPLACE FUNCTION lol.delta_decode(d int[]) RETURNS int[]
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+SELECT COALESCE(array_agg(s ORDER BY i), '{}')
+FROM (SELECT i, (sum(x) OVER (ORDER BY i))::int AS s FROM unnest(d) WITH ORDINALITY AS t(x, i)) q
+$$;
+
+-- séries dépliées au format de participant_frame (sans damage_stats) ; frame_index = position
+-- dans la série, FrameSeries.pack comble les frames manquantes
+CREATE OR REPLACE VIEW lol.v_series_frames AS
+SELECT s.match_id,
+       (f.i - 1)::int    AS frame_index,
+       f.ts::bigint      AS ts_ms,
+       s.participant_id,
+       f.total_gold, f.current_gold, f.xp, f.level,
+       f.cs              AS minions_killed,
+       f.jcs             AS jungle_minions_killed,
+       f.x               AS position_x,
+       f.y               AS position_y,
+       s.game_creation_ms
+FROM lol.participant_series s
+         CROSS JOIN LATERAL unnest(
+            lol.delta_decode(s.ts_ms), lol.delta_decode(s.total_gold), lol.delta_decode(s.current_gold),
+            lol.delta_decode(s.xp), lol.delta_decode(s.level), lol.delta_decode(s.minions_killed),
+            lol.delta_decode(s.jungle_minions_killed), lol.delta_decode(s.position_x), lol.delta_decode(s.position_y)
+         ) WITH ORDINALITY AS f(ts, total_gold, current_gold, xp, level, cs, jcs, x, y, i);
+
+-- compatibilité : même forme qu'avant, quel que soit le stockage du match
+CREATE OR REPLACE VIEW lol.v_gold_timeseries AS
+SELECT pf.match_id, pa.puuid, pf.frame_index, pf.ts_ms, pf.total_gold
+FROM lol.participant_frame pf
+         JOIN lol.participant pa ON pa.match_id = pf.match_id AND pa.participant_id = pf.participant_id
+UNION ALL
+SELECT sf.match_id, pa.puuid, sf.frame_index, sf.ts_ms, sf.total_gold
+FROM lol.v_series_frames sf
+         JOIN lol.participant pa ON pa.match_id = sf.match_id AND pa.participant_id = sf.participant_id;
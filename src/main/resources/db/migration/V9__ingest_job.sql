@@ -0,0 +1,22 @@
+-- File de travaux d'ingestion durable, partagée par plusieurs workers (FOR UPDATE SKIP LOCKED + bail).
+-- PLAYER : payload = puuid ou Riot ID "gameName#tagLine" → liste ses nouveaux matchs et les enfile.
+-- MATCH  : payload = match_id → récupère et stocke le match + sa timeline.
+
+CREATE TABLE IF NOT EXISTS lol.ingest_job (
+    id            bigserial PRIMARY KEY,
+    kind          text NOT NULL CHECK (kind IN ('PLAYER', 'MATCH')),
+    payload       text NOT NULL,
+    router        text,                              -- NULL = app.riot.router / préfixe du match
+    status        text NOT NULL DEFAULT 'PENDING',   -- PENDING | RUNNING | DONE | DEAD
+    attempts      int  NOT NULL DEFAULT 0,
+    run_after     timestamptz NOT NULL DEFAULT now(),
+    lease_until   timestamptz,
+    leased_by     text,
+    last_error    text,
+    created_at    timestamptz DEFAULT now(),
+    updated_at    timestamptz DEFAULT now(),
+    UNIQUE (kind, payload)
+);
+
+CREATE INDEX IF NOT EXISTS idx_job_ready   ON lol.ingest_job (run_after) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_job_leased  ON lol.ingest_job (lease_until) WHERE status = 'RUNNING';
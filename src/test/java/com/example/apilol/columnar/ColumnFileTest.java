@@ -0,0 +1,134 @@
+package com.example.apilol.columnar;
+
+import com.example.apilol.columnar.ColumnWriter.Column;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripWithNullsDictionaryAndBounds() throws IOException {
+        Path file = dir.resolve("t.lolc");
+        try (ColumnWriter w = new ColumnWriter(file, List.of(
+                new Column("i", ColumnType.INT), new Column("l", ColumnType.LONG), new Column("d", ColumnType.DOUBLE),
+                new Column("b", ColumnType.BOOL), new Column("s", ColumnType.DICT)))) {
+            w.writeInt(0, 7);       w.writeLong(1, -3L);  w.writeDouble(2, 1.5);  w.writeBool(3, true);  w.writeString(4, "MIDDLE"); w.endRow();
+            w.writeNull(0);         w.writeNull(1);       w.writeNull(2);         w.writeNull(3);        w.writeString(4, null);     w.endRow();
+            w.writeInt(0, -2);      w.writeLong(1, 40L);  w.writeDouble(2, -0.5); w.writeBool(3, false); w.writeString(4, "TOP");    w.endRow();
+            w.writeInt(0, 12);      w.writeLong(1, 0L);   w.writeDouble(2, 9.0);  w.writeBool(3, true);  w.writeString(4, "MIDDLE"); w.endRow();
+            w.finish();
+        }
+        assertEquals(List.of(file), list());
+
+        try (ColumnReader r = ColumnReader.open(file)) {
+            assertEquals(4, r.rows());
+            var i = r.column("i");
+            var l = r.column("l");
+            var d = r.column("d");
+            var b = r.column("b");
+            var s = r.column("s");
+
+            assertEquals(7, i.getInt(0));
+            assertEquals(12, i.getInt(3));
+            assertEquals(40L, l.getLong(2));
+            assertEquals(-0.5, d.getDouble(2));
+            assertEquals(1, b.getBool(0));
+            assertEquals(0, b.getBool(2));
+
+            for (var c : r.columns()) {
+                assertTrue(c.isNull(1), c.name());
+                assertEquals(1, c.nullCount(), c.name());
+            }
+
+            assertEquals(-2, i.min());
+            assertEquals(12, i.max());
+            assertEquals(-3, l.min());
+            assertEquals(40, l.max());
+            assertEquals(-0.5, d.minDouble());
+            assertEquals(9.0, d.maxDouble());
+            assertEquals(0, b.min());
+            assertEquals(1, b.max());
+
+            assertEquals(List.of("MIDDLE", "TOP"), s.dictionary());
+            assertEquals(0, s.min());
+            assertEquals(1, s.max());
+            assertEquals("MIDDLE", s.getString(0));
+            assertNull(s.getString(1));
+            assertEquals("TOP", s.getString(2));
+            assertSame(s.getString(0), s.getString(3));
+            assertEquals(1, s.code("TOP"));
+            assertEquals(-2, s.code("JUNGLE"));
+        }
+    }
+
+    @Test
+    void closeWithoutFinishPublishesNothing() throws IOException {
+        Path file = dir.resolve("partial.lolc");
+        try (ColumnWriter w = new ColumnWriter(file, List.of(new Column("i", ColumnType.INT)))) {
+            w.writeInt(0, 1);
+            w.endRow();
+        }
+        assertEquals(List.of(), list());
+    }
+
+    @Test
+    void failedExportKeepsPreviousFile() throws IOException {
+        Path file = dir.resolve("t.lolc");
+        try (ColumnWriter w = new ColumnWriter(file, List.of(new Column("i", ColumnType.INT)))) {
+            w.writeInt(0, 1);
+            w.endRow();
+            w.finish();
+        }
+        try (ColumnWriter w = new ColumnWriter(file, List.of(new Column("i", ColumnType.INT)))) {
+            w.writeInt(0, 2);
+            w.endRow();
+        }
+        try (ColumnReader r = ColumnReader.open(file)) {
+            assertEquals(1, r.rows());
+            assertEquals(1, r.column("i").getInt(0));
+        }
+        assertEquals(List.of(file), list());
+    }
+
+    /** Une colonne LONG de plus de 1 Go : les lignes de part et d'autre de la 1re tranche mappée. */
+    @Test
+    void readsAcrossTheOneGigabyteChunk() throws IOException {
+        long boundary = 1L << 27; // 2^27 × 8 octets = 1 Go
+        long rows = boundary + 16;
+        Path file = dir.resolve("big.lolc");
+        try (ColumnWriter w = new ColumnWriter(file, List.of(
+                new Column("k", ColumnType.INT), new Column("v", ColumnType.LONG)))) {
+            for (long r = 0; r < rows; r++) {
+                if (r < 4) w.writeInt(0, (int) r); else w.writeNull(0);
+                w.writeLong(1, r * 3);
+                w.endRow();
+            }
+            w.finish();
+        }
+        try (ColumnReader r = ColumnReader.open(file)) {
+            assertEquals(rows, r.rows());
+            var k = r.column("k");
+            var v = r.column("v");
+            assertEquals(rows - 4, k.nullCount());
+            for (long row = boundary - 16; row < rows; row++) assertEquals(row * 3, v.getLong(row), "ligne " + row);
+            assertEquals(0, v.min());
+            assertEquals((rows - 1) * 3, v.max());
+            assertEquals(3, k.getInt(3));
+            assertTrue(k.isNull(boundary));
+        }
+    }
+
+    private List<Path> list() throws IOException {
+        try (var files = Files.list(dir)) { return files.sorted().toList(); }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.apilol.db;
+
+import com.example.apilol.db.FrameSeries.Series;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameSeriesTest {
+
+    @Test
+    void packThenDecodeRestoresEveryFrame() {
+        List<Object[]> frames = List.of(
+                frame(0, 0L, 1, 500, 500, 0, 1, 0, 0, 560, 560, "{\"totalDamageDone\": 0}"),
+                frame(1, 60_000L, 1, 820, 320, 180, 1, 6, 0, 1200, 900, "{\"totalDamageDone\": 340}"),
+                frame(2, 120_000L, 1, 1400, 400, 420, 3, 14, 2, 5000, 4800, "{\"totalDamageDone\": 1210}"));
+
+        Series s = decode(FrameSeries.pack("EUW1_1", 1_700_000_000_000L, frames)).getFirst();
+
+        assertEquals(1, s.participantId());
+        assertArrayEquals(new int[]{0, 60_000, 120_000}, s.tsMs());
+        assertArrayEquals(new int[]{500, 820, 1400}, s.totalGold());
+        assertArrayEquals(new int[]{500, 320, 400}, s.currentGold());
+        assertArrayEquals(new int[]{0, 180, 420}, s.xp());
+        assertArrayEquals(new int[]{1, 1, 3}, s.level());
+        assertArrayEquals(new int[]{0, 6, 14}, s.minionsKilled());
+        assertArrayEquals(new int[]{0, 0, 2}, s.jungleMinionsKilled());
+        assertArrayEquals(new int[]{560, 1200, 5000}, s.positionX());
+        assertArrayEquals(new int[]{560, 900, 4800}, s.positionY());
+        assertArrayEquals(new int[]{0, 340, 1210}, s.damage().get("totalDamageDone"));
+        assertArrayEquals(new int[]{0, 0, 0}, s.damage().get("trueDamageTaken"));
+    }
+
+    @Test
+    void missingValuesCarryTheLastOneForward() {
+        List<Object[]> frames = List.of(
+                frame(0, 0L, 4, 500, 500, 0, 1, 0, 0, 560, 560, "{\"magicDamageTaken\": 12}"),
+                frame(1, 60_000L, 4, null, 310, null, 2, 3, 0, null, 700, "null"),
+                frame(2, null, 4, 900, 90, 300, null, 8, 0, 2000, null, "{\"magicDamageTaken\": 40}"));
+
+        Series s = decode(FrameSeries.pack("EUW1_1", 0L, frames)).getFirst();
+
+        assertArrayEquals(new int[]{0, 60_000, 60_000}, s.tsMs());
+        assertArrayEquals(new int[]{500, 500, 900}, s.totalGold());
+        assertArrayEquals(new int[]{0, 0, 300}, s.xp());
+        assertArrayEquals(new int[]{1, 2, 2}, s.level());
+        assertArrayEquals(new int[]{560, 560, 2000}, s.positionX());
+        assertArrayEquals(new int[]{560, 700, 700}, s.positionY());
+        assertArrayEquals(new int[]{12, 12, 40}, s.damage().get("magicDamageTaken"));
+    }
+
+    /** Une frame absente pour un participant : l'indice i de la série reste frame_index = i. */
+    @Test
+    void gapsAreFilledSoIndicesMatchFrameIndex() {
+        List<Object[]> frames = new ArrayList<>(List.of(
+                frame(0, 0L, 1, 500, 500, 0, 1, 0, 0, 10, 10, "null"),
+                frame(1, 60_000L, 1, 700, 700, 100, 1, 2, 0, 20, 20, "null"),
+                frame(2, 120_000L, 1, 900, 900, 200, 2, 4, 0, 30, 30, "null"),
+                frame(3, 180_000L, 1, 1100, 1100, 300, 2, 6, 0, 40, 40, "null"),
+                frame(0, 0L, 2, 500, 500, 0, 1, 0, 0, 10, 10, "null"),
+                frame(3, 180_000L, 2, 1300, 1300, 350, 3, 9, 0, 90, 90, "null")));
+        frames.add(frames.remove(1)); // ordre d'arrivée quelconque
+
+        List<Series> series = decode(FrameSeries.pack("EUW1_1", 0L, frames));
+        Series full = series.get(0), gappy = series.get(1);
+
+        assertEquals(4, full.frames());
+        assertArrayEquals(new int[]{500, 700, 900, 1100}, full.totalGold());
+        assertEquals(4, gappy.frames());
+        assertArrayEquals(new int[]{0, 60_000, 120_000, 180_000}, gappy.tsMs());
+        assertArrayEquals(new int[]{500, 500, 500, 1300}, gappy.totalGold());
+        assertArrayEquals(new int[]{10, 10, 10, 90}, gappy.positionX());
+    }
+
+    @Test
+    void deltaEncodingRoundTrips() {
+        int[] v = {3, 3, -7, Integer.MAX_VALUE, 0, 42};
+        int[] enc = FrameSeries.deltaEncode(v, 0, v.length);
+        assertArrayEquals(new int[]{3, 0, -10}, new int[]{enc[0], enc[1], enc[2]});
+        assertArrayEquals(v, FrameSeries.deltaDecode(enc));
+    }
+
+    private static List<Series> decode(List<Object[]> packed) {
+        List<Series> out = new ArrayList<>();
+        for (Object[] row : packed) {
+            assertEquals(Table.PARTICIPANT_SERIES.columns().size(), row.length);
+            assertEquals(((int[]) row[3]).length, row[2]);
+            out.add(FrameSeries.decode((String) row[0], (Integer) row[1], (int[]) row[3], (int[]) row[4], (int[]) row[5],
+                    (int[]) row[6], (int[]) row[7], (int[]) row[8], (int[]) row[9], (int[]) row[10], (int[]) row[11],
+                    (int[]) row[12]));
+        }
+        return out;
+    }
+
+    /** Ligne au format de {@link Table#PARTICIPANT_FRAME}. */
+    private static Object[] frame(int idx, Long ts, int pid, Integer totalGold, Integer currentGold, Integer xp,
+                                  Integer level, Integer cs, Integer jungleCs, Integer x, Integer y, String damage) {
+        return new Object[]{"EUW1_1", idx, ts, pid, totalGold, currentGold, xp, level, cs, jungleCs, x, y, Db.jsonb(damage), 0L};
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.apilol.db;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontierStoreTest {
+    private static TestDb db;
+    private static FrontierStore frontier;
+
+    @BeforeAll
+    static void start() throws Exception {
+        db = new TestDb();
+        frontier = new FrontierStore(db.db);
+    }
+
+    @AfterAll
+    static void stop() throws Exception { db.close(); }
+
+    @Test
+    void failedPlayersAreRetriedUpToMaxAttempts() {
+        frontier.seed("P1", "europe");
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            assertEquals("P1", frontier.claim("europe", "europe", 2).puuid());
+            frontier.failed("P1", "503");
+            assertNull(frontier.claim("europe", "europe", 2));
+            frontier.resetInProgress(3);
+        }
+        assertNull(frontier.claim("europe", "europe", 2), "abandonné après 3 échecs");
+        assertEquals("FAILED", status("P1"));
+    }
+
+    @Test
+    void interruptedPlayersAreResumed() {
+        frontier.seed("P2", "americas");
+        assertEquals("P2", frontier.claim("americas", "europe", 2).puuid());
+
+        assertEquals(1, frontier.resetInProgress(3));
+
+        assertEquals("PENDING", status("P2"));
+    }
+
+    private static String status(String puuid) {
+        return db.jdbc().queryForObject("SELECT status FROM lol.crawl_frontier WHERE puuid = ?", String.class, puuid);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.apilol.db;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsStoreTest {
+    private static final long CREATED = 1_717_200_000_000L; // juin 2024
+
+    private static TestDb db;
+    private static StatsStore stats;
+
+    @BeforeAll
+    static void start() throws Exception {
+        db = new TestDb();
+        stats = new StatsStore(db.db);
+        new PartitionManager(db.db).ensure(CREATED);
+    }
+
+    @AfterAll
+    static void stop() throws Exception { db.close(); }
+
+    @Test
+    void duplicatePuuidsInOneMatchAreAggregatedOnce() {
+        // co-op contre l'IA : les bots partagent le puuid "BOT" ; P2 apparaît aussi deux fois
+        match("EUW1_1", 850);
+        participant("EUW1_1", 1, "P1", true, 3, 1, 4);
+        participant("EUW1_1", 2, "P2", true, 5, 0, 2);
+        participant("EUW1_1", 3, "P2", true, 1, 2, 6);
+        participant("EUW1_1", 6, "BOT", false, 0, 4, 0);
+        participant("EUW1_1", 7, "BOT", false, 1, 3, 0);
+        for (int pid : new int[]{1, 2, 3, 6, 7}) {
+            frame("EUW1_1", 0, pid, 500);
+            frame("EUW1_1", 1, pid, 500 + 100 * pid);
+        }
+
+        assertTrue(stats.apply("EUW1_1", CREATED, true));
+
+        StatsStore.Line p2 = stats.player("P2").getFirst();
+        assertEquals(850, p2.queueId());
+        assertEquals(2, p2.games());
+        assertEquals(2, p2.wins());
+        assertEquals(6, p2.kills());
+        assertEquals(2, p2.deaths());
+        assertEquals(8, p2.assists());
+        assertEquals(1, stats.player("P1").getFirst().games());
+        assertTrue(stats.player("BOT").isEmpty());
+
+        List<Integer> samples = db.jdbc().queryForList("""
+            SELECT samples FROM lol.player_gold_curve WHERE puuid = 'P2' ORDER BY frame_index
+        """, Integer.class);
+        assertEquals(List.of(2, 2), samples);
+        assertEquals(700L + 800L, db.jdbc().queryForObject("""
+            SELECT gold_sum FROM lol.player_gold_curve WHERE puuid = 'P2' AND frame_index = 1
+        """, Long.class));
+        assertEquals(0, db.jdbc().queryForObject(
+                "SELECT count(*) FROM lol.player_gold_curve WHERE puuid = 'BOT'", Integer.class));
+    }
+
+    @Test
+    void aMatchIsAggregatedOnlyOnce() {
+        match("EUW1_2", 420);
+        participant("EUW1_2", 1, "P3", false, 2, 7, 1);
+
+        stats.apply("EUW1_2", CREATED, false);
+        stats.apply("EUW1_2", CREATED, false);
+
+        assertEquals(1, stats.player("P3").getFirst().games());
+    }
+
+    private static void match(String id, int queue) {
+        db.jdbc().update("""
+            INSERT INTO lol.match(match_id, patch, queue_id, game_creation_ms) VALUES (?, '14.11', ?, ?)
+        """, id, queue, CREATED);
+    }
+
+    private static void participant(String match, int pid, String puuid, boolean win, int k, int d, int a) {
+        db.jdbc().update("INSERT INTO lol.summoner(puuid) VALUES (?) ON CONFLICT DO NOTHING", puuid);
+        db.jdbc().update("""
+            INSERT INTO lol.participant(match_id, participant_id, puuid, champion_id, win, kills, deaths, assists)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """, match, pid, puuid, 100 + pid, win, k, d, a);
+    }
+
+    private static void frame(String match, int index, int pid, int gold) {
+        db.jdbc().update("""
+            INSERT INTO lol.participant_frame(match_id, frame_index, ts_ms, participant_id, total_gold, game_creation_ms)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """, match, index, index * 60_000L, pid, gold, CREATED);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.apilol.db;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+
+/**
+ * PostgreSQL embarqué (binaires téléchargés par Gradle, pas de Docker) migré par les scripts
+ * Flyway de l'application. Une instance par classe de test, à fermer dans {@code @AfterAll}.
+ */
+final class TestDb implements AutoCloseable {
+    private final EmbeddedPostgres pg;
+    final Db db;
+
+    TestDb() throws IOException {
+        pg = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(pg.getPostgresDatabase()).load().migrate();
+        db = new Db(new JdbcTemplate(pg.getPostgresDatabase()));
+    }
+
+    JdbcTemplate jdbc() { return db.jdbc(); }
+
+    @Override
+    public void close() throws IOException { pg.close(); }
+}
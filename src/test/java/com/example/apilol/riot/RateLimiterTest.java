@@ -0,0 +1,112 @@
+package com.example.apilol.riot;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void parsesLimitHeaders() {
+        assertEquals(Map.of(1L, 20, 120L, 100), RateLimiter.parse("20:1,100:120"));
+        assertEquals(Map.of(10L, 500, 600L, 30000), RateLimiter.parse(" 500:10 , 30000:600 "));
+        assertEquals(Map.of(1L, 20), RateLimiter.parse("20:1,oops,x:2,3:y"));
+        assertEquals(Map.of(), RateLimiter.parse(null));
+        assertEquals(Map.of(), RateLimiter.parse(" "));
+    }
+
+    @Test
+    void probesOneRequestUntilHeadersArrive() {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        assertEquals(0, rl.tryAcquire("match"));
+        assertTrue(rl.tryAcquire("match") > 0, "2e requête avant toute réponse");
+
+        rl.update("match", "20:1,100:120", "1:1,1:120", "2000:10", "1:10");
+        assertEquals(0, rl.tryAcquire("match"));
+    }
+
+    @Test
+    void blocksWhenAWindowIsFull() {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        rl.update("match", "3:1", "0:1", "100:10", "0:10");
+        for (int i = 0; i < 3; i++) assertEquals(0, rl.tryAcquire("match"), "requête " + i);
+
+        long wait = rl.tryAcquire("match");
+        assertTrue(wait > 0 && wait <= Duration.ofMillis(1250).toNanos(), "attente " + wait);
+        // le bucket app est partagé : une autre méthode attend aussi
+        rl.update("timeline", null, null, "100:10", "0:10");
+        assertTrue(rl.tryAcquire("timeline") > 0);
+    }
+
+    /** Le serveur compte aussi les requêtes d'autres process : son compte l'emporte s'il est plus haut. */
+    @Test
+    void resyncsCountsFromResponses() {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        rl.update("match", "5:1", "0:1", "100:10", "0:10");
+        assertEquals(0, rl.tryAcquire("match"));
+
+        rl.update("match", "5:1", "5:1", "100:10", "1:10");
+        assertTrue(rl.tryAcquire("match") > 0);
+
+        // un compte plus bas ne libère pas la fenêtre en cours
+        rl.update("match", "5:1", "2:1", "100:10", "1:10");
+        assertTrue(rl.tryAcquire("match") > 0);
+    }
+
+    @Test
+    void windowReopensAfterItsLength() throws InterruptedException {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        rl.update("match", "1:1", "1:1", "100:10", "1:10");
+        long wait = rl.tryAcquire("match");
+        assertTrue(wait > 0);
+
+        Thread.sleep(Duration.ofNanos(wait).plusMillis(20));
+        assertEquals(0, rl.tryAcquire("match"));
+        assertTrue(rl.tryAcquire("match") > 0);
+    }
+
+    @Test
+    void penalizeBlocksTheBucketNamedByTheLimitType() {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        rl.update("match", "100:1", "0:1", "100:1", "0:1");
+        rl.update("timeline", null, null, "100:1", "0:1");
+
+        rl.penalize("match", "method", 3);
+        assertTrue(rl.tryAcquire("match") > Duration.ofSeconds(2).toNanos());
+        assertEquals(0, rl.tryAcquire("timeline"));
+
+        rl.penalize("timeline", "application", 3);
+        assertTrue(rl.tryAcquire("timeline") > Duration.ofSeconds(2).toNanos());
+        assertTrue(rl.tryAcquire("account") > Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    void penalizeWaitsAtLeastOneSecond() {
+        RateLimiter rl = new RateLimiter("europe", new SimpleMeterRegistry());
+        rl.update("match", "100:1", "0:1", "100:1", "0:1");
+        rl.penalize("match", null, 0);
+        long wait = rl.tryAcquire("match");
+        assertTrue(wait > Duration.ofMillis(900).toNanos() && wait <= Duration.ofSeconds(1).toNanos(), "attente " + wait);
+    }
+
+    @Test
+    void recordsWaitsAgainstTheLimitingBucket() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        RateLimiter rl = new RateLimiter("europe", meters);
+        rl.update("match", "100:1", "0:1", "1:10", "1:10");
+        rl.recordWait("match", Duration.ofMillis(30).toNanos());
+        assertEquals(Duration.ofMillis(30), rl.waitTimes().get("match"));
+        assertEquals(Duration.ZERO, rl.waitTimes().get(RateLimiter.APP));
+        assertEquals(1L, rl.waitCounts().get("match"));
+
+        Timer t = meters.get("riot.ratelimit.wait").tag("router", "europe").tag("bucket", "match").timer();
+        assertEquals(1, t.count());
+        assertEquals(30, t.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+}
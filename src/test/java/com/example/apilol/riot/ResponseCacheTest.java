@@ -0,0 +1,131 @@
+package com.example.apilol.riot;
+
+import com.example.apilol.config.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsAndReloadsTheIndex() throws IOException {
+        ResponseCache cache = open(1 << 20);
+        cache.put(ResponseCache.key("match", "EUW1_2"), body("m2"));
+        cache.put(ResponseCache.key("match", "EUW1_1"), body("m1"));
+        cache.put(ResponseCache.key("timeline", "EUW1_1"), body("t1"));
+        assertArrayEquals(body("m1"), cache.get(ResponseCache.key("match", "EUW1_1")));
+        assertNull(cache.get(ResponseCache.key("match", "EUW1_3")));
+        cache.close();
+
+        ResponseCache reopened = open(1 << 20);
+        assertEquals(List.of("EUW1_1", "EUW1_2"), reopened.ids("match"));
+        assertArrayEquals(body("t1"), reopened.get(ResponseCache.key("timeline", "EUW1_1")));
+        reopened.close();
+    }
+
+    @Test
+    void rollsToANewSegmentPastTheSize() throws IOException {
+        ResponseCache cache = open(1);
+        for (int i = 0; i < 3; i++) cache.put(ResponseCache.key("match", "EUW1_" + i), body("m" + i));
+        cache.close();
+        try (var files = Files.list(dir)) {
+            assertEquals(3, files.filter(p -> p.getFileName().toString().startsWith("seg-")).count());
+        }
+        ResponseCache reopened = open(1);
+        for (int i = 0; i < 3; i++) assertArrayEquals(body("m" + i), reopened.get(ResponseCache.key("match", "EUW1_" + i)));
+        reopened.close();
+    }
+
+    /** Arrêt brutal au milieu d'une entrée d'index : les entrées complètes restent, l'index est réparé. */
+    @Test
+    void recoversFromATornIndexTail() throws IOException {
+        ResponseCache cache = open(1 << 20);
+        cache.put(ResponseCache.key("match", "EUW1_1"), body("m1"));
+        cache.put(ResponseCache.key("match", "EUW1_2"), body("m2"));
+        cache.close();
+        truncate(dir.resolve("index.bin"), 5);
+
+        ResponseCache torn = open(1 << 20);
+        assertEquals(List.of("EUW1_1"), torn.ids("match"));
+        assertArrayEquals(body("m1"), torn.get(ResponseCache.key("match", "EUW1_1")));
+        // ajout après réparation : ne doit pas se coller à l'entrée tronquée
+        torn.put(ResponseCache.key("match", "EUW1_3"), body("m3"));
+        torn.close();
+
+        ResponseCache reopened = open(1 << 20);
+        assertEquals(List.of("EUW1_1", "EUW1_3"), reopened.ids("match"));
+        assertArrayEquals(body("m3"), reopened.get(ResponseCache.key("match", "EUW1_3")));
+        reopened.close();
+    }
+
+    /** Index écrit mais corps non arrivé sur disque : l'entrée qui déborde du segment est ignorée. */
+    @Test
+    void ignoresEntriesPastTheEndOfTheirSegment() throws IOException {
+        ResponseCache cache = open(1 << 20);
+        cache.put(ResponseCache.key("match", "EUW1_1"), body("m1"));
+        cache.put(ResponseCache.key("match", "EUW1_2"), body("m2"));
+        cache.close();
+        truncate(dir.resolve("seg-000001.bin"), 3);
+
+        ResponseCache reopened = open(1 << 20);
+        assertEquals(List.of("EUW1_1"), reopened.ids("match"));
+        reopened.close();
+    }
+
+    @Test
+    void detectsCorruptedBodies() throws IOException {
+        ResponseCache cache = open(1 << 20);
+        cache.put(ResponseCache.key("match", "EUW1_1"), body("m1"));
+        cache.close();
+        Path seg = dir.resolve("seg-000001.bin");
+        try (RandomAccessFile f = new RandomAccessFile(seg.toFile(), "rw")) {
+            f.seek(f.length() - 2);
+            int b = f.read();
+            f.seek(f.length() - 2);
+            f.write(b ^ 0xFF);
+        }
+
+        ResponseCache reopened = open(1 << 20);
+        assertThrows(IOException.class, () -> reopened.get(ResponseCache.key("match", "EUW1_1")));
+        reopened.close();
+    }
+
+    @Test
+    void disabledCacheStoresNothing() throws IOException {
+        AppProperties props = new AppProperties();
+        props.getCache().setDir(dir.resolve("off").toString());
+        ResponseCache cache = new ResponseCache(props);
+        cache.put(ResponseCache.key("match", "EUW1_1"), body("m1"));
+        assertNull(cache.get(ResponseCache.key("match", "EUW1_1")));
+        assertFalse(Files.exists(dir.resolve("off")));
+    }
+
+    private ResponseCache open(long segmentBytes) throws IOException {
+        AppProperties props = new AppProperties();
+        props.getCache().setEnabled(true);
+        props.getCache().setDir(dir.toString());
+        props.getCache().setSegmentBytes(segmentBytes);
+        return new ResponseCache(props);
+    }
+
+    private static void truncate(Path file, int bytes) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) { f.setLength(f.length() - bytes); }
+    }
+
+    /** corps compressible, taille proche d'un vrai match */
+    private static byte[] body(String tag) {
+        return ("{\"metadata\":{\"tag\":\"" + tag + "\"},\"info\":" + "[1,2,3,4]".repeat(2_000) + "}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.apilol.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsAnAddedId() {
+        BloomFilter b = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) b.add("EUW1_" + (7_000_000_000L + i));
+        for (int i = 0; i < 10_000; i++) assertTrue(b.mightContain("EUW1_" + (7_000_000_000L + i)));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter b = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) b.add("EUW1_" + i);
+        int fp = 0, probes = 100_000;
+        for (int i = 0; i < probes; i++) if (b.mightContain("KR_" + i)) fp++;
+        assertTrue(fp < probes * 0.02, "faux positifs : " + fp);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter b = new BloomFilter(1, 0.01);
+        assertFalse(b.mightContain(""));
+        assertFalse(b.mightContain("EUW1_1"));
+        b.add("");
+        assertTrue(b.mightContain(""));
+    }
+
+    @Test
+    void concurrentAddsAreAllVisible() throws Exception {
+        BloomFilter b = new BloomFilter(80_000, 0.01);
+        try (ExecutorService exec = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                done.add(exec.submit(() -> { for (int i = 0; i < 10_000; i++) b.add(thread + "_" + i); }));
+            }
+            for (var f : done) f.get();
+        }
+        for (int t = 0; t < 8; t++) for (int i = 0; i < 10_000; i++) assertTrue(b.mightContain(t + "_" + i));
+    }
+}
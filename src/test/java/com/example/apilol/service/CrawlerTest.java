@@ -0,0 +1,79 @@
+package com.example.apilol.service;
+
+import com.example.apilol.config.AppProperties;
+import com.example.apilol.db.FrontierStore;
+import com.example.apilol.db.FrontierStore.Node;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CrawlerTest {
+
+    @Test
+    void workersNeverWriteMoreThanMaxMatches() throws Exception {
+        AppProperties cfg = cfg(10, 4, 3);
+        FrontierStore frontier = mock(FrontierStore.class);
+        AtomicInteger players = new AtomicInteger();
+        when(frontier.claim(anyString(), anyString(), anyInt()))
+                .thenAnswer(i -> new Node("P" + players.incrementAndGet(), 1, "europe"));
+        IngestionService ingestion = mock(IngestionService.class);
+        AtomicInteger written = new AtomicInteger();
+        when(ingestion.ingestPuuid(anyString(), anyString(), anyInt(), anyInt())).thenAnswer(i -> {
+            int maxNew = i.getArgument(3);
+            Thread.sleep(20); // les autres workers réservent pendant ce temps
+            int from = written.getAndAdd(maxNew);
+            return IntStream.range(from, from + maxNew).mapToObj(n -> "EUW1_" + n).toList();
+        });
+
+        int total = new Crawler(ingestion, frontier, mock(SeenMatches.class), cfg).crawl(null, "europe");
+
+        assertEquals(10, total);
+        assertEquals(10, written.get());
+    }
+
+    @Test
+    void unusedReservationGoesBackToTheBudget() throws Exception {
+        AppProperties cfg = cfg(5, 4, 1);
+        FrontierStore frontier = mock(FrontierStore.class);
+        when(frontier.claim(anyString(), anyString(), anyInt()))
+                .thenReturn(new Node("P1", 1, "europe"), new Node("P2", 1, "europe"),
+                        new Node("P3", 1, "europe"), null);
+        IngestionService ingestion = mock(IngestionService.class);
+        when(ingestion.ingestPuuid(anyString(), eq("P1"), anyInt(), anyInt())).thenReturn(List.of("EUW1_1"));
+        when(ingestion.ingestPuuid(anyString(), eq("P2"), anyInt(), anyInt())).thenReturn(List.of("EUW1_2", "EUW1_3", "EUW1_4"));
+        when(ingestion.ingestPuuid(anyString(), eq("P3"), anyInt(), anyInt())).thenReturn(List.of("EUW1_5"));
+
+        assertEquals(5, new Crawler(ingestion, frontier, mock(SeenMatches.class), cfg).crawl(null, "europe"));
+        // P1 n'a consommé qu'un match sur 4 : P2 peut en écrire 4, P3 le dernier
+        verify(ingestion).ingestPuuid("europe", "P2", 4, 4);
+        verify(ingestion).ingestPuuid("europe", "P3", 1, 1);
+    }
+
+    @Test
+    void aWorkerFailureFailsTheCrawl() {
+        AppProperties cfg = cfg(10, 4, 2);
+        FrontierStore frontier = mock(FrontierStore.class);
+        when(frontier.claim(anyString(), anyString(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("connexion perdue"));
+
+        Crawler crawler = new Crawler(mock(IngestionService.class), frontier, mock(SeenMatches.class), cfg);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> crawler.crawl(null, "europe"));
+    }
+
+    private static AppProperties cfg(int maxMatches, int perPlayer, int workers) {
+        AppProperties cfg = new AppProperties();
+        cfg.getRiot().setRouter("europe");
+        cfg.getTarget().setCount(perPlayer);
+        cfg.getCrawl().setMaxMatches(maxMatches);
+        cfg.getCrawl().setWorkers(workers);
+        return cfg;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.apilol.service;
+
+import com.example.apilol.db.MatchRows;
+import com.example.apilol.db.Table;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchParserTest {
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    @Test
+    void parsesMatchColumns() throws IOException {
+        byte[] body = fixture("match.json");
+        MatchRows rows = MatchParser.parseMatch(body, "americas");
+
+        assertEquals("EUW1_7000000001", rows.matchId);
+        assertEquals(Arrays.asList("EUW1_7000000001", "2", "14.11.589.9418", "14.11", 420, 1717000000000L,
+                        1717000020000L, 1717001830000L, 1805, 11, "EUW1", "", "europe"),
+                Arrays.asList(rows.match).subList(0, MatchRows.RAW));
+        assertSame(body, rows.match[MatchRows.RAW], "corps brut lié tel quel, sans copie");
+        assertEquals(1717000000000L, rows.gameCreationMs());
+    }
+
+    @Test
+    void parsesTeams() throws IOException {
+        MatchRows rows = MatchParser.parseMatch(fixture("match.json"), "europe");
+
+        assertEquals(2, rows.teams.size());
+        assertEquals(Arrays.asList("EUW1_7000000001", 100, true, 1, 3, 1, 2, 9, 157, 238, null, null, null),
+                Arrays.asList(rows.teams.get(0)));
+        assertEquals(Arrays.asList("EUW1_7000000001", 200, false, 0, 1, null, null, 3, null, null, null, null, null),
+                Arrays.asList(rows.teams.get(1)));
+        for (Object[] t : rows.teams) assertEquals(Table.TEAM.columns().size(), t.length);
+    }
+
+    @Test
+    void splitsParticipantColumnsFromStats() throws IOException {
+        MatchRows rows = MatchParser.parseMatch(fixture("match.json"), "europe");
+        Object[] p = rows.participants.get(0);
+
+        assertEquals(Table.PARTICIPANT.columns().size(), p.length);
+        assertEquals(Arrays.asList("EUW1_7000000001", 1, "p-1", 100, 103, "Ahri", "Alice", "EUW", "MIDDLE", "MIDDLE", "SOLO"),
+                Arrays.asList(p).subList(0, 11));
+        assertEquals(12850, p[Table.PARTICIPANT.columns().indexOf("gold_earned")]);
+        assertEquals(21.5, p[Table.PARTICIPANT.columns().indexOf("vision_score")]);
+        assertEquals(true, p[Table.PARTICIPANT.columns().indexOf("win")]);
+        assertEquals(OM.readTree("{\"styles\": [{\"style\": 8100}]}"), json(p[Table.PARTICIPANT.columns().indexOf("perks")]));
+        // champs sans colonne : gardés en jsonb, sans les colonnes connues ni perks
+        assertEquals(OM.readTree("{\"challenges\": {\"kda\": 8.0}, \"pentaKills\": 0}"),
+                json(p[Table.PARTICIPANT.columns().indexOf("stats")]));
+    }
+
+    @Test
+    void nonNumericValuesBecomeNull() throws IOException {
+        MatchRows rows = MatchParser.parseMatch(fixture("match.json"), "europe");
+        Object[] p = rows.participants.get(1);
+        List<String> cols = Table.PARTICIPANT.columns();
+
+        assertEquals(64, p[cols.indexOf("champion_id")], "chaîne numérique");
+        assertNull(p[cols.indexOf("kills")], "booléen");
+        assertNull(p[cols.indexOf("deaths")], "chaîne non numérique");
+        assertNull(p[cols.indexOf("assists")], "null JSON");
+        assertNull(p[cols.indexOf("gold_earned")], "objet");
+        assertNull(p[cols.indexOf("item0")], "absent");
+        assertEquals(false, p[cols.indexOf("win")]);
+    }
+
+    @Test
+    void tokenConversions() throws IOException {
+        assertEquals(List.of(7, 8, 9), ints("[7, 8.9, \"9\"]"));
+        assertEquals(Arrays.asList(null, null, null, null, null), ints("[true, \"x\", null, {\"a\": 1}, [1]]"));
+        try (JsonParser p = new JsonFactory().createParser("[1717000000000, \"1717000000001\", false]")) {
+            p.nextToken();
+            p.nextToken(); assertEquals(1717000000000L, MatchParser.toLong(p));
+            p.nextToken(); assertEquals(1717000000001L, MatchParser.toLong(p));
+            p.nextToken(); assertNull(MatchParser.toLong(p));
+        }
+    }
+
+    @Test
+    void parsesTimelineFramesAndEvents() throws IOException {
+        MatchRows rows = MatchParser.parseMatch(fixture("match.json"), "europe");
+        byte[] timeline = fixture("timeline.json");
+        MatchParser.parseTimeline(rows, timeline);
+
+        assertSame(timeline, rows.timelineRaw);
+        assertEquals(4, rows.frames.size());
+        Object[] f = rows.frames.get(2); // frame 1, participant 1 ; "timestamp" avant participantFrames
+        assertEquals(Table.PARTICIPANT_FRAME.columns().size(), f.length);
+        assertEquals(Arrays.asList("EUW1_7000000001", 1, 60012L, 1, 770, 120, 300, 2, 6, 0, 7000, 7100),
+                Arrays.asList(f).subList(0, 12));
+        assertEquals(1717000000000L, f[13]);
+        assertEquals(0L, rows.frames.get(0)[2], "\"timestamp\" après participantFrames");
+        assertEquals(OM.readTree("{\"totalDamageDone\": 0}"), json(rows.frames.get(0)[12]));
+
+        assertEquals(3, rows.events.size());
+        List<String> cols = Table.TIMELINE_EVENT.columns();
+        Object[] ward = rows.events.get(1);
+        assertEquals("WARD_PLACED", ward[cols.indexOf("event_type")]);
+        assertEquals(2, ward[cols.indexOf("participant_id")], "creatorId");
+        assertEquals("YELLOW_TRINKET", ward[cols.indexOf("ward_type")]);
+
+        Object[] kill = rows.events.get(2);
+        assertEquals(55000L, kill[cols.indexOf("ts_ms")]);
+        assertArrayEquals(new Integer[]{3, 4}, (Integer[]) kill[cols.indexOf("assisting_ids")]);
+        assertEquals(7200, kill[cols.indexOf("position_x")]);
+        assertEquals(300, kill[cols.indexOf("bounty")]);
+        assertEquals(OM.readTree("{\"shutdownBounty\": 0, \"victimDamageReceived\": [{\"basic\": true}]}"),
+                json(kill[cols.indexOf("other")]));
+        assertEquals(1717000000000L, kill[cols.indexOf("game_creation_ms")]);
+    }
+
+    @Test
+    void rejectsNonObjectBodies() {
+        assertThrows(IOException.class, () -> MatchParser.parseMatch("[]".getBytes(), "europe"));
+    }
+
+    private static List<Integer> ints(String array) throws IOException {
+        try (JsonParser p = new JsonFactory().createParser(array)) {
+            p.nextToken();
+            List<Integer> out = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) out.add(MatchParser.toInt(p));
+            return out;
+        }
+    }
+
+    private static JsonNode json(Object jsonb) throws IOException {
+        return OM.readTree(((PGobject) jsonb).getValue());
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = MatchParserTest.class.getResourceAsStream("/fixtures/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+}
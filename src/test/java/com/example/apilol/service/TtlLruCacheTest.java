@@ -0,0 +1,68 @@
+package com.example.apilol.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlLruCacheTest {
+
+    @Test
+    void loadsOnceThenServesFromCache() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(2, Duration.ofMinutes(1));
+        cache.get("a", () -> "a1");
+        cache.get("b", () -> "b1");
+        cache.get("a", () -> "a2");          // a redevient le plus récent
+        cache.get("c", () -> "c1");          // évince b
+        assertEquals("a1", cache.get("a", () -> "a3"));
+        assertEquals("b2", cache.get("b", () -> "b2"));
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() throws InterruptedException {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, Duration.ofMillis(30));
+        cache.get("a", () -> "old");
+        Thread.sleep(60);
+        assertEquals("new", cache.get("a", () -> "new"));
+    }
+
+    @Test
+    void invalidateDropsTheGivenKeysOnly() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, Duration.ofMinutes(1));
+        cache.get("a", () -> "a1");
+        cache.get("b", () -> "b1");
+        cache.invalidate(List.of("a"));
+        assertEquals("a2", cache.get("a", () -> "a2"));
+        assertEquals("b1", cache.get("b", () -> "b2"));
+    }
+
+    /** Une valeur chargée pendant une invalidation peut être périmée : rendue, mais pas gardée. */
+    @Test
+    void doesNotCacheAValueLoadedAcrossAnInvalidation() throws Exception {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, Duration.ofMinutes(1));
+        CountDownLatch loading = new CountDownLatch(1), invalidated = new CountDownLatch(1);
+        Thread t = Thread.ofVirtual().start(() -> cache.get("a", () -> {
+            loading.countDown();
+            try { invalidated.await(); } catch (InterruptedException e) { throw new RuntimeException(e); }
+            return "stale";
+        }));
+        loading.await();
+        cache.invalidate(List.of("a"));
+        invalidated.countDown();
+        t.join();
+        assertEquals("fresh", cache.get("a", () -> "fresh"));
+    }
+}